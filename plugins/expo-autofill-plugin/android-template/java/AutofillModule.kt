@@ -8,6 +8,7 @@ import android.os.Build
 import android.provider.Settings
 import android.view.autofill.AutofillManager
 import com.facebook.react.bridge.*
+import com.pears.pass.autofill.data.IpcMetrics
 import com.pears.pass.autofill.utils.AutofillConstants
 
 class AutofillModule(reactContext: ReactApplicationContext) :
@@ -125,4 +126,35 @@ class AutofillModule(reactContext: ReactApplicationContext) :
     fun requestToEnableAutofill(promise: Promise) {
         promise.resolve(false)
     }
+
+    /**
+     * Returns the autofill extension's worklet request metrics, per command,
+     * recorded in this process since it started or since the last reset
+     */
+    @ReactMethod
+    fun getAutofillMetrics(reset: Boolean, promise: Promise) {
+        try {
+            val snapshot = toWritableMap(IpcMetrics.snapshot())
+            if (reset) {
+                IpcMetrics.reset()
+            }
+            promise.resolve(snapshot)
+        } catch (e: Exception) {
+            promise.reject("E_METRICS_UNAVAILABLE", "Unable to read autofill metrics: ${e.message}")
+        }
+    }
+
+    private fun toWritableMap(map: Map<String, Any?>): WritableMap {
+        val result = Arguments.createMap()
+        for ((key, value) in map) {
+            @Suppress("UNCHECKED_CAST")
+            when (value) {
+                is Map<*, *> -> result.putMap(key, toWritableMap(value as Map<String, Any?>))
+                is Number -> result.putDouble(key, value.toDouble())
+                is String -> result.putString(key, value)
+                else -> result.putNull(key)
+            }
+        }
+        return result
+    }
 }
\ No newline at end of file
@@ -1,17 +1,21 @@
 package com.pears.pass.autofill.data;
 
 import android.content.Context;
-import android.os.Handler;
-import android.os.Looper;
+import android.os.SystemClock;
+import com.pears.pass.autofill.utils.AutofillConstants;
 import com.pears.pass.autofill.utils.SecureLog;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import to.holepunch.bare.kit.IPC;
 import to.holepunch.bare.kit.Worklet;
 
-public class BareHelper {
+public class BareHelper implements WorkletTransport {
     private static final String TAG = "BareHelper";
 
     private final Context context;
@@ -20,28 +24,23 @@ public class BareHelper {
     private final int memoryLimit;
     private Worklet worklet;
     private IPC ipc;
-    private boolean isRunning = false;
-
-    public interface WriteCallback {
-        void onComplete(Throwable error);
-    }
-
-    public interface ReadCallback {
-        void onData(byte[] data, Throwable error);
-    }
-
-    public interface SendCallback {
-        void onResponse(String reply, Throwable error);
-    }
+    private volatile boolean isRunning = false;
+    private volatile MessageListener messageListener;
+    private volatile boolean isReading = false;
+    private final IpcFrameDecoder frameDecoder;
+    private volatile long lastStartDurationMs = -1;
 
     public BareHelper(Context context, String bundleName, String bundleType, int memoryLimitInMB) {
         this.context = context;
         this.bundleName = bundleName;
         this.bundleType = bundleType;
         this.memoryLimit = memoryLimitInMB * 1024 * 1024; // Convert MB to bytes
+        // A single reply can never be larger than the worklet's own heap
+        this.frameDecoder = new IpcFrameDecoder(memoryLimit);
         SecureLog.d(TAG, "Initialized with bundle " + bundleName + "." + bundleType + " and memory limit: " + memoryLimit + " bytes");
     }
 
+    @Override
     public boolean startWorklet() {
         if (isRunning) {
             SecureLog.d(TAG, "Worklet is already running");
@@ -50,6 +49,8 @@ public class BareHelper {
 
         SecureLog.d(TAG, "Starting worklet with bundle: " + bundleName + "." + bundleType);
 
+        long startedAt = SystemClock.elapsedRealtime();
+
         try {
             // Create worklet configuration
             Worklet.Options config = new Worklet.Options();
@@ -63,15 +64,22 @@ public class BareHelper {
             // Start worklet with bundle
             // The bundle file is located in the assets directory
             String bundleFileName = bundleName + "." + bundleType;
-            InputStream bundleStream = context.getAssets().open(bundleFileName);
-            worklet.start("/" + bundleFileName, bundleStream, new String[]{});
+            ByteBuffer mappedBundle = AutofillConstants.MAP_WORKLET_BUNDLE ? mapBundle(bundleFileName) : null;
+            if (mappedBundle != null) {
+                worklet.start("/" + bundleFileName, mappedBundle, new String[]{});
+            } else {
+                InputStream bundleStream = context.getAssets().open(bundleFileName);
+                worklet.start("/" + bundleFileName, bundleStream, new String[]{});
+            }
 
-            SecureLog.d(TAG, "Worklet started successfully with bundle");
+            lastStartDurationMs = SystemClock.elapsedRealtime() - startedAt;
+            SecureLog.d(TAG, "Worklet started successfully with bundle in " + lastStartDurationMs + "ms ("
+                    + (mappedBundle != null ? "mapped" : "asset stream") + ")");
 
             // Initialize IPC
             ipc = new IPC(worklet);
 
-            SecureLog.d(TAG, "IPC created successfully - IPC: " + ipc + ", Worklet: " + worklet);
+            SecureLog.d(TAG, () -> "IPC created successfully - IPC: " + ipc + ", Worklet: " + worklet);
 
             isRunning = true;
 
@@ -86,182 +94,185 @@ public class BareHelper {
         }
     }
 
-    public void write(byte[] data, WriteCallback callback) {
-        if (!isRunning || ipc == null) {
-            SecureLog.e(TAG, "Cannot write - worklet not running or IPC not available");
-            if (callback != null) {
-                callback.onComplete(new Exception("Worklet not running"));
-            }
-            return;
-        }
-
-        SecureLog.d(TAG, "Writing " + data.length + " bytes");
-
+    /**
+     * Map the bundle from a copy in the code cache, extracting it from the APK
+     * assets on first use after install or update. Returns null on failure so
+     * the caller can fall back to the asset stream.
+     */
+    private ByteBuffer mapBundle(String bundleFileName) {
         try {
-            ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
-            buffer.put(data);
-            buffer.flip();
+            File cacheDir = new File(context.getCodeCacheDir(), "worklet");
+            long installStamp = context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+            File cachedBundle = new File(cacheDir, bundleFileName + "." + installStamp);
 
-            ipc.write(buffer, (error) -> {
-                if (callback != null) {
-                    callback.onComplete(error);
-                }
+            if (!cachedBundle.exists()) {
+                extractBundle(bundleFileName, cacheDir, cachedBundle);
+            }
 
-                SecureLog.d(TAG, "Writing done!");
-            });
-        } catch (Exception e) {
-            SecureLog.e(TAG, "Error during write operation", e);
-            if (callback != null) {
-                callback.onComplete(e);
+            try (RandomAccessFile file = new RandomAccessFile(cachedBundle, "r");
+                 FileChannel channel = file.getChannel()) {
+                // The mapping stays valid after the channel is closed
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
             }
+        } catch (Exception e) {
+            SecureLog.w(TAG, "Failed to map bundle, falling back to asset stream: " + e.getMessage());
+            return null;
         }
     }
 
-    public void read(ReadCallback callback) {
-        if (!isRunning || ipc == null) {
-            SecureLog.e(TAG, "Cannot read - worklet not running or IPC not available");
-            if (callback != null) {
-                callback.onData(null, new Exception("Worklet not running"));
+    private void extractBundle(String bundleFileName, File cacheDir, File target) throws IOException {
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            throw new IOException("Failed to create " + cacheDir.getAbsolutePath());
+        }
+
+        // Drop copies left by previous installs
+        File[] stale = cacheDir.listFiles();
+        if (stale != null) {
+            for (File file : stale) {
+                file.delete();
             }
-            return;
         }
 
-        if (worklet == null) {
-            SecureLog.e(TAG, "Cannot read - worklet is null");
+        File temp = File.createTempFile(bundleFileName, ".tmp", cacheDir);
+        try (InputStream in = context.getAssets().open(bundleFileName);
+             FileOutputStream out = new FileOutputStream(temp)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            out.getFD().sync();
+        }
+
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("Failed to rename extracted bundle");
+        }
+        SecureLog.d(TAG, "Extracted bundle to " + target.getAbsolutePath());
+    }
+
+    /**
+     * @return How long the last {@link #startWorklet} took to create and start the worklet, or -1
+     */
+    @Override
+    public long getLastStartDurationMs() {
+        return lastStartDurationMs;
+    }
+
+    /**
+     * Write a message without waiting for a reply. Replies are delivered to the
+     * listener registered with {@link #startReading}.
+     */
+    @Override
+    public void post(String message, WriteCallback callback) {
+        ByteBuffer writeBuffer = ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+        if (!isRunning || ipc == null) {
+            SecureLog.e(TAG, "Cannot post - worklet not running or IPC not available");
             if (callback != null) {
-                callback.onData(null, new Exception("Worklet is null"));
+                callback.onComplete(new Exception("Worklet not running"));
             }
             return;
         }
 
-        SecureLog.d(TAG, "Reading data - IPC: " + ipc + ", Worklet: " + worklet);
-
         try {
-            // The crash happens here - let's check if the IPC might have an issue with its internal state
-            // The SIGSEGV at 0x18 suggests accessing a field at offset 0x18 of a null object
-
-            // Let's try to validate the IPC state before calling read
-            SecureLog.d(TAG, "About to call ipc.read() - validating state");
-
-            ipc.read((data, error) -> {
-                SecureLog.d(TAG, "IPC read callback invoked");
-                try {
-                    if (error != null) {
-                        SecureLog.e(TAG, "IPC read error: " + error.getMessage());
-                        if (callback != null) {
-                            callback.onData(null, error);
-                        }
-                    } else if (data != null && data.remaining() > 0) {
-                        byte[] bytes = new byte[data.remaining()];
-                        data.get(bytes);
-                        SecureLog.d(TAG, "Read " + bytes.length + " bytes");
-                        if (callback != null) {
-                            callback.onData(bytes, null);
-                        }
-                    } else {
-                        SecureLog.w(TAG, "No data available to read");
-                        if (callback != null) {
-                            callback.onData(null, new Exception("No data received"));
-                        }
-                    }
-                } catch (Exception e) {
-                    SecureLog.e(TAG, "Error processing read data", e);
-                    if (callback != null) {
-                        callback.onData(null, e);
-                    }
+            ipc.write(writeBuffer, (writeException) -> {
+                if (writeException != null) {
+                    SecureLog.e(TAG, "Write failed", writeException);
+                }
+                if (callback != null) {
+                    callback.onComplete(writeException);
                 }
             });
         } catch (Exception e) {
-            SecureLog.e(TAG, "Error initiating read: " + e.getMessage(), e);
+            SecureLog.e(TAG, "Error in post operation", e);
             if (callback != null) {
-                callback.onData(null, e);
+                callback.onComplete(e);
             }
         }
     }
 
-    public void send(String message, SendCallback callback) {
+    /**
+     * Start a single long-lived read loop on the IPC. The loop re-arms itself after
+     * every read, reassembles replies that arrive split across or merged within reads
+     * (see {@link IpcFrameDecoder}), and hands each complete reply to the listener
+     * until {@link #shutdown} is called.
+     */
+    @Override
+    public void startReading(MessageListener listener) {
+        messageListener = listener;
+        if (isReading) {
+            return;
+        }
         if (!isRunning || ipc == null) {
-            SecureLog.e(TAG, "Cannot send - worklet not running or IPC not available");
-            if (callback != null) {
-                callback.onResponse(null, new Exception("Worklet not running"));
+            SecureLog.e(TAG, "Cannot start reading - worklet not running or IPC not available");
+            if (listener != null) {
+                listener.onError(new Exception("Worklet not running"));
             }
             return;
         }
+        isReading = true;
+        frameDecoder.reset();
+        readNext();
+    }
 
-        // Convert string to bytes
-        byte[] messageData;
-        try {
-            messageData = message.getBytes(StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            SecureLog.e(TAG, "Failed to encode message", e);
-            if (callback != null) {
-                callback.onResponse(null, e);
-            }
+    private void readNext() {
+        IPC currentIpc = ipc;
+        if (!isRunning || currentIpc == null) {
+            isReading = false;
             return;
         }
 
-        SecureLog.d(TAG, "Sending message: " + message);
-
         try {
-            ByteBuffer writeBuffer = ByteBuffer.wrap(messageData);
-            
-            ipc.write(writeBuffer, (writeException) -> {
-                if (writeException != null) {
-                    SecureLog.e(TAG, "Write failed", writeException);
-                    if (callback != null) {
-                        callback.onResponse(null, writeException);
+            currentIpc.read((replyData, readException) -> {
+                MessageListener listener = messageListener;
+                if (readException != null) {
+                    SecureLog.e(TAG, "Read failed", readException);
+                    if (listener != null) {
+                        listener.onError(readException);
                     }
-                    return;
-                }
-
-                SecureLog.d(TAG, "Message written successfully, now reading response");
-
-                // Read inside the write callback, exactly like the example
-                ipc.read((replyData, readException) -> {
-                    if (readException != null) {
-                        SecureLog.e(TAG, "Read failed", readException);
-                        if (callback != null) {
-                            callback.onResponse(null, readException);
-                        }
-                        return;
-                    }
-
-                    if (replyData == null || replyData.remaining() == 0) {
-                        SecureLog.w(TAG, "No reply data received");
-                        if (callback != null) {
-                            callback.onResponse(null, new Exception("No reply data received"));
-                        }
-                        return;
-                    }
-
+                } else if (replyData != null && replyData.remaining() > 0) {
                     try {
-                        String reply = StandardCharsets.UTF_8.decode(replyData).toString();
-                        SecureLog.d(TAG, "Received reply: " + reply);
-                        if (callback != null) {
-                            callback.onResponse(reply, null);
-                        }
-                    } catch (Exception e) {
-                        SecureLog.e(TAG, "Failed to decode reply", e);
-                        if (callback != null) {
-                            callback.onResponse(null, e);
+                        frameDecoder.feed(replyData, (buffer, offset, length) -> {
+                            if (listener == null) {
+                                return;
+                            }
+                            try {
+                                listener.onMessage(new String(buffer, offset, length, StandardCharsets.UTF_8), length);
+                            } catch (Exception e) {
+                                SecureLog.e(TAG, "Failed to dispatch reply", e);
+                            }
+                        });
+                    } catch (IOException e) {
+                        // The decoder has dropped its buffer; replies resume at the next frame
+                        SecureLog.e(TAG, "Malformed reply stream", e);
+                        if (listener != null) {
+                            listener.onError(e);
                         }
                     }
-                });
-            });
+                }
 
+                // Re-arm for the next reply
+                readNext();
+            });
         } catch (Exception e) {
-            SecureLog.e(TAG, "Error in send operation", e);
-            if (callback != null) {
-                callback.onResponse(null, e);
+            isReading = false;
+            SecureLog.e(TAG, "Error arming read loop: " + e.getMessage(), e);
+            MessageListener listener = messageListener;
+            if (listener != null) {
+                listener.onError(e);
             }
         }
     }
 
-
-
+    @Override
     public void shutdown() {
         SecureLog.d(TAG, "Shutting down");
 
+        isRunning = false;
+        isReading = false;
+        messageListener = null;
+
         if (ipc != null) {
             ipc.close();
             ipc = null;
@@ -272,18 +283,11 @@ public class BareHelper {
             worklet = null;
         }
 
-        isRunning = false;
         SecureLog.d(TAG, "Shutdown complete");
     }
 
+    @Override
     public boolean isRunning() {
         return isRunning;
     }
-
-    @Override
-    protected void finalize() throws Throwable {
-        shutdown();
-        SecureLog.d(TAG, "Finalized");
-        super.finalize();
-    }
-}
\ No newline at end of file
+}
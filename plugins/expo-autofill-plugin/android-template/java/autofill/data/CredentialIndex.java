@@ -0,0 +1,276 @@
+package com.pears.pass.autofill.data;
+
+import android.content.Context;
+
+import com.pears.pass.autofill.jobs.JobEncryption;
+import com.pears.pass.autofill.utils.SecureLog;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encrypted on-device index of login records, used to show matching items in
+ * the selection sheet before the vault itself has been opened and listed.
+ *
+ * Only display fields are stored (id, title, username, websites, passkey flag);
+ * passwords, card data and passkey private keys never leave the vault. The
+ * index is encrypted with the same key as the job queue (the master
+ * hashedPassword, see {@link JobEncryption}) and is rebuilt from every full
+ * vault load.
+ *
+ * File format (binary):
+ * <pre>
+ *   [Header 16 bytes]
+ *     Magic: "PPCI" (4 bytes ASCII)
+ *     Version: uint16 LE (2 bytes) — currently 1
+ *     Vault Count: uint16 LE (2 bytes)
+ *     Reserved: (8 bytes of zeros)
+ *   [Nonce 24 bytes]
+ *   [Encrypted payload (variable)]
+ *     When decrypted, yields a JSON object mapping vault id to an array of entries.
+ * </pre>
+ *
+ * Stored in {@code context.getFilesDir()/pearpass_jobs/} next to the job file,
+ * so it is removed together with it by the app's first-launch cleanup.
+ */
+public class CredentialIndex {
+    private static final String TAG = "CredentialIndex";
+
+    private static final byte[] MAGIC = "PPCI".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final String INDEX_FILE_NAME = "credential_index.enc";
+
+    private final File baseDirectory;
+
+    /**
+     * A single indexed login record.
+     */
+    public static class Entry {
+        public final String id;
+        public final String title;
+        public final String username;
+        public final List<String> websites;
+        public final boolean hasPasskey;
+
+        public Entry(String id, String title, String username, List<String> websites, boolean hasPasskey) {
+            this.id = id;
+            this.title = title;
+            this.username = username;
+            this.websites = websites != null ? websites : new ArrayList<>();
+            this.hasPasskey = hasPasskey;
+        }
+
+        /**
+         * Build a display-only CredentialItem. It carries no password or passkey
+         * material and must be replaced by the vault record before it is used.
+         */
+        public CredentialItem toCredentialItem() {
+            CredentialItem item = new CredentialItem(id, title, username, "", new ArrayList<>(websites));
+            item.setHasPasskey(hasPasskey);
+            return item;
+        }
+
+        JSONObject toJSON() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("id", id);
+            json.put("title", title);
+            json.put("username", username);
+            json.put("websites", new JSONArray(websites));
+            json.put("hasPasskey", hasPasskey);
+            return json;
+        }
+
+        static Entry fromJSON(JSONObject json) {
+            List<String> websites = new ArrayList<>();
+            JSONArray array = json.optJSONArray("websites");
+            if (array != null) {
+                for (int i = 0; i < array.length(); i++) {
+                    Object website = array.opt(i);
+                    if (website instanceof String) websites.add((String) website);
+                }
+            }
+            return new Entry(
+                    json.optString("id"),
+                    json.optString("title"),
+                    json.optString("username"),
+                    websites,
+                    json.optBoolean("hasPasskey", false));
+        }
+    }
+
+    public CredentialIndex(Context context) {
+        this.baseDirectory = new File(context.getFilesDir(), "pearpass_jobs");
+    }
+
+    /**
+     * Create a CredentialIndex with a custom base directory (for testing).
+     */
+    public CredentialIndex(File baseDirectory) {
+        this.baseDirectory = baseDirectory;
+    }
+
+    public boolean exists() {
+        File file = new File(baseDirectory, INDEX_FILE_NAME);
+        return file.exists() && file.length() > 0;
+    }
+
+    /**
+     * Build index entries from parsed login credentials.
+     */
+    public static List<Entry> fromCredentials(List<CredentialItem> credentials) {
+        List<Entry> entries = new ArrayList<>(credentials.size());
+        for (CredentialItem c : credentials) {
+            if (c.getId() == null || c.isCreditCard()) continue;
+            entries.add(new Entry(c.getId(), c.getTitle(),
+                    c.getUsername() != null ? c.getUsername() : "",
+                    c.getWebsites(), c.hasPasskey()));
+        }
+        return entries;
+    }
+
+    /**
+     * Read the indexed entries of one vault.
+     *
+     * @param vaultId        The vault whose entries to return
+     * @param hashedPassword 32-byte encryption key
+     * @return The entries; empty if the vault or the index file does not exist
+     * @throws Exception if the file is corrupted or cannot be decrypted
+     */
+    public List<Entry> readEntries(String vaultId, byte[] hashedPassword) throws Exception {
+        JSONObject vaults = readAll(hashedPassword);
+        List<Entry> entries = new ArrayList<>();
+        JSONArray array = vaults.optJSONArray(vaultId);
+        if (array == null) {
+            return entries;
+        }
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject json = array.optJSONObject(i);
+            if (json != null) entries.add(Entry.fromJSON(json));
+        }
+        return entries;
+    }
+
+    /**
+     * Replace the indexed entries of one vault, keeping the others.
+     * Uses atomic write: temp file, fsync, rename.
+     *
+     * @param vaultId        The vault whose entries to replace
+     * @param entries        The vault's current login records
+     * @param hashedPassword 32-byte encryption key
+     * @throws Exception if encryption or I/O fails
+     */
+    public void writeEntries(String vaultId, List<Entry> entries, byte[] hashedPassword) throws Exception {
+        JSONObject vaults;
+        try {
+            vaults = readAll(hashedPassword);
+        } catch (Exception e) {
+            // Written with a previous master key or corrupted; start over
+            SecureLog.w(TAG, "Discarding unreadable credential index: " + e.getMessage());
+            vaults = new JSONObject();
+        }
+
+        JSONArray array = new JSONArray();
+        for (Entry entry : entries) {
+            array.put(entry.toJSON());
+        }
+        vaults.put(vaultId, array);
+
+        if (!baseDirectory.exists() && !baseDirectory.mkdirs()) {
+            throw new IOException("Failed to create index directory: " + baseDirectory.getAbsolutePath());
+        }
+
+        byte[] jsonBytes = vaults.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] encrypted = JobEncryption.encrypt(jsonBytes, hashedPassword);
+        JobEncryption.secureZero(jsonBytes);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC);
+        header.putShort((short) VERSION);
+        header.putShort((short) Math.min(vaults.length(), 0xFFFF));
+
+        File indexFile = new File(baseDirectory, INDEX_FILE_NAME);
+        File tempFile = new File(baseDirectory, INDEX_FILE_NAME + ".tmp");
+
+        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+            fos.write(header.array());
+            fos.write(encrypted);
+            fos.getFD().sync();
+        }
+
+        if (!tempFile.renameTo(indexFile)) {
+            if (indexFile.exists()) {
+                indexFile.delete();
+            }
+            if (!tempFile.renameTo(indexFile)) {
+                tempFile.delete();
+                throw new IOException("Failed to atomically rename temp file to " + indexFile.getAbsolutePath());
+            }
+        }
+
+        SecureLog.d(TAG, "Indexed " + entries.size() + " records for vault");
+    }
+
+    /**
+     * Delete the index file.
+     */
+    public boolean delete() {
+        File file = new File(baseDirectory, INDEX_FILE_NAME);
+        return !file.exists() || file.delete();
+    }
+
+    private JSONObject readAll(byte[] hashedPassword) throws Exception {
+        File indexFile = new File(baseDirectory, INDEX_FILE_NAME);
+        if (!indexFile.exists() || indexFile.length() == 0) {
+            return new JSONObject();
+        }
+
+        byte[] fileData = readFileBytes(indexFile);
+        if (fileData.length < HEADER_SIZE + JobEncryption.NONCE_BYTES + JobEncryption.MAC_BYTES + 1) {
+            throw new IOException("Index file too small: " + fileData.length + " bytes");
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (fileData[i] != MAGIC[i]) {
+                throw new IOException("Invalid magic bytes in index file");
+            }
+        }
+        int version = ByteBuffer.wrap(fileData, 4, 2).order(ByteOrder.LITTLE_ENDIAN).getShort() & 0xFFFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported index file version: " + version);
+        }
+
+        byte[] nonceAndCiphertext = new byte[fileData.length - HEADER_SIZE];
+        System.arraycopy(fileData, HEADER_SIZE, nonceAndCiphertext, 0, nonceAndCiphertext.length);
+
+        byte[] plaintext = JobEncryption.decrypt(nonceAndCiphertext, hashedPassword);
+        String json = new String(plaintext, StandardCharsets.UTF_8);
+        JobEncryption.secureZero(plaintext);
+        return new JSONObject(json);
+    }
+
+    private static byte[] readFileBytes(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        try (FileInputStream fis = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < data.length) {
+                int read = fis.read(data, offset, data.length - offset);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of index file");
+                }
+                offset += read;
+            }
+        }
+        return data;
+    }
+}
@@ -0,0 +1,158 @@
+package com.pears.pass.autofill.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reassembles worklet replies from the raw IPC byte stream.
+ *
+ * A single IPC read may contain part of a reply, exactly one reply, or several
+ * replies back to back. Replies are JSON documents, so frame boundaries are found
+ * by tracking object/array nesting outside of string literals. Whitespace between
+ * documents (including newline delimiters) is skipped.
+ *
+ * Scanning state is kept between reads, so every byte is inspected only once no
+ * matter how many reads a large reply is split across. Structural characters are
+ * all ASCII and never appear inside multi-byte UTF-8 sequences, so scanning works
+ * directly on the encoded bytes.
+ *
+ * Not thread-safe; it is driven by the single BareHelper read loop.
+ */
+public class IpcFrameDecoder {
+
+    /**
+     * Receives each complete frame. The array is only valid for the duration of the call.
+     */
+    public interface FrameListener {
+        void onFrame(byte[] buffer, int offset, int length);
+    }
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    private final int maxFrameSize;
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // Scan state, preserved across feed() calls
+    private int scanPos = 0;
+    private int frameStart = -1;
+    private int depth = 0;
+    private boolean inString = false;
+    private boolean escaped = false;
+
+    /**
+     * @param maxFrameSize Largest reply accepted before the stream is considered corrupt
+     */
+    public IpcFrameDecoder(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Append the bytes of one IPC read and dispatch every frame it completes.
+     *
+     * @param data     The bytes read from the IPC (consumed by this call)
+     * @param listener Receives complete frames in arrival order
+     * @throws IOException if the stream is not a sequence of JSON documents or a frame is too large
+     */
+    public void feed(ByteBuffer data, FrameListener listener) throws IOException {
+        int incoming = data.remaining();
+        ensureCapacity(size + incoming);
+        data.get(buffer, size, incoming);
+        size += incoming;
+
+        for (int i = scanPos; i < size; i++) {
+            byte b = buffer[i];
+
+            if (frameStart < 0) {
+                if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                    continue;
+                }
+                if (b != '{' && b != '[') {
+                    reset();
+                    throw new IOException("Unexpected byte 0x" + Integer.toHexString(b & 0xFF) + " between frames");
+                }
+                frameStart = i;
+                depth = 1;
+                continue;
+            }
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+                if (depth == 0) {
+                    int start = frameStart;
+                    frameStart = -1;
+                    listener.onFrame(buffer, start, i + 1 - start);
+                }
+            }
+        }
+
+        compact();
+
+        if (frameStart >= 0 && size > maxFrameSize) {
+            reset();
+            throw new IOException("Reply exceeds maximum frame size of " + maxFrameSize + " bytes");
+        }
+    }
+
+    /**
+     * Drop any partially received frame and start over.
+     */
+    public void reset() {
+        size = 0;
+        scanPos = 0;
+        frameStart = -1;
+        depth = 0;
+        inString = false;
+        escaped = false;
+    }
+
+    /**
+     * @return Number of bytes buffered for a frame that has not completed yet
+     */
+    public int bufferedBytes() {
+        return frameStart < 0 ? 0 : size - frameStart;
+    }
+
+    private void compact() {
+        if (frameStart < 0) {
+            size = 0;
+            scanPos = 0;
+            return;
+        }
+        if (frameStart > 0) {
+            int remaining = size - frameStart;
+            System.arraycopy(buffer, frameStart, buffer, 0, remaining);
+            size = remaining;
+            frameStart = 0;
+        }
+        scanPos = size;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= buffer.length) {
+            return;
+        }
+        int newCapacity = buffer.length;
+        while (newCapacity < required) {
+            newCapacity = newCapacity << 1;
+        }
+        byte[] grown = new byte[newCapacity];
+        System.arraycopy(buffer, 0, grown, 0, size);
+        buffer = grown;
+    }
+}
@@ -0,0 +1,162 @@
+package com.pears.pass.autofill.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide latency and payload-size metrics of worklet requests, per
+ * command, recorded by {@link PearPassVaultClient}:
+ * <ul>
+ *   <li>queueWaitUs: time queued behind in-flight requests</li>
+ *   <li>encodeUs: building and encoding the request</li>
+ *   <li>roundTripUs: from handing the request to the worklet until its reply arrived</li>
+ *   <li>parseUs: parsing the JSON reply</li>
+ *   <li>replyBytes: reply size in bytes, as read from the worklet</li>
+ * </ul>
+ *
+ * Each value goes into a fixed-size histogram of power-of-two buckets, so
+ * recording is a few atomic increments and memory does not grow with traffic.
+ * Percentiles in a snapshot are bucket upper bounds, i.e. accurate to within
+ * a factor of two. The metrics live as long as the process, which the
+ * autofill service shares with the main app, so the app can read them through
+ * AutofillModule.
+ */
+public final class IpcMetrics {
+
+    private static final Map<String, CommandMetrics> commands = new ConcurrentHashMap<>();
+
+    private IpcMetrics() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Histogram with bucket 0 for the value 0 and bucket i for values in
+     * [2^(i-1), 2^i). Larger values land in the last bucket.
+     */
+    static final class Histogram {
+        private static final int BUCKETS = 40;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            int bucket = Math.min(64 - Long.numberOfLeadingZeros(value), BUCKETS - 1);
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            long current;
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+                // Retry until max holds the larger value
+            }
+        }
+
+        Map<String, Object> snapshot() {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+
+            Map<String, Object> map = new HashMap<>();
+            map.put("count", total);
+            map.put("mean", total > 0 ? (double) sum.get() / total : 0.0);
+            map.put("max", max.get());
+            map.put("p50", percentile(counts, total, 0.50));
+            map.put("p90", percentile(counts, total, 0.90));
+            map.put("p99", percentile(counts, total, 0.99));
+            return map;
+        }
+
+        private static long percentile(long[] counts, long total, double fraction) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i == 0 ? 0 : (1L << i) - 1;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static final class CommandMetrics {
+        final Histogram queueWaitUs = new Histogram();
+        final Histogram encodeUs = new Histogram();
+        final Histogram roundTripUs = new Histogram();
+        final Histogram parseUs = new Histogram();
+        final Histogram replyBytes = new Histogram();
+        final AtomicLong failures = new AtomicLong();
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("queueWaitUs", queueWaitUs.snapshot());
+            map.put("encodeUs", encodeUs.snapshot());
+            map.put("roundTripUs", roundTripUs.snapshot());
+            map.put("parseUs", parseUs.snapshot());
+            map.put("replyBytes", replyBytes.snapshot());
+            map.put("failures", failures.get());
+            return map;
+        }
+    }
+
+    private static CommandMetrics forCommand(String command) {
+        CommandMetrics metrics = commands.get(command);
+        if (metrics == null) {
+            metrics = commands.computeIfAbsent(command, key -> new CommandMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Record one answered request. Durations are in nanoseconds.
+     */
+    static void recordReply(String command, long queueWaitNanos, long encodeNanos,
+                            long roundTripNanos, long parseNanos, int replyBytes) {
+        CommandMetrics metrics = forCommand(command);
+        metrics.queueWaitUs.record(TimeUnit.NANOSECONDS.toMicros(queueWaitNanos));
+        metrics.encodeUs.record(TimeUnit.NANOSECONDS.toMicros(encodeNanos));
+        metrics.roundTripUs.record(TimeUnit.NANOSECONDS.toMicros(roundTripNanos));
+        metrics.parseUs.record(TimeUnit.NANOSECONDS.toMicros(parseNanos));
+        metrics.replyBytes.record(replyBytes);
+    }
+
+    /**
+     * Record a request that failed: an error reply, a failed write, or a broken read.
+     */
+    static void recordFailure(String command) {
+        forCommand(command).failures.incrementAndGet();
+    }
+
+    /**
+     * @return Per command name: a summary (count, mean, max, p50, p90, p99) of each
+     *         histogram, plus the failure count. Contains only Maps, Longs, and Doubles.
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new HashMap<>();
+        for (Map.Entry<String, CommandMetrics> entry : commands.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drop all recorded metrics.
+     */
+    public static void reset() {
+        commands.clear();
+    }
+}
@@ -0,0 +1,88 @@
+package com.pears.pass.autofill.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of read-only worklet calls that a single unlock repeats
+ * (vault list, master encryption, encryption status) for one worklet session.
+ *
+ * Entries are stored as futures, so concurrent callers share one in-flight
+ * call. Every invalidation bumps a version; a load that started before the
+ * latest invalidation still completes its callers but is never kept. Failed
+ * loads are not cached.
+ *
+ * Owned by {@link PearPassVaultClient}, which invalidates on every command that
+ * may change master vault metadata and when the worklet is closed.
+ */
+class MetadataCache {
+
+    private final Map<String, Entry<?>> entries = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long version = 0;
+
+    private static class Entry<T> {
+        final long version;
+        final CompletableFuture<T> future;
+
+        Entry(long version, CompletableFuture<T> future) {
+            this.version = version;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Return the cached future for {@code key}, or start {@code loader} and cache it.
+     */
+    @SuppressWarnings("unchecked")
+    <T> CompletableFuture<T> get(String key, Supplier<CompletableFuture<T>> loader) {
+        long loadVersion;
+        synchronized (this) {
+            Entry<?> entry = entries.get(key);
+            if (entry != null && entry.version == version && !entry.future.isCompletedExceptionally()) {
+                hits.incrementAndGet();
+                return (CompletableFuture<T>) entry.future;
+            }
+            misses.incrementAndGet();
+            loadVersion = version;
+        }
+
+        CompletableFuture<T> future = loader.get();
+        synchronized (this) {
+            if (loadVersion == version) {
+                entries.put(key, new Entry<>(loadVersion, future));
+            }
+        }
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                synchronized (this) {
+                    Entry<?> entry = entries.get(key);
+                    if (entry != null && entry.future == future) {
+                        entries.remove(key);
+                    }
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Drop every entry, including loads still in flight.
+     */
+    synchronized void invalidate() {
+        version++;
+        entries.clear();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+}
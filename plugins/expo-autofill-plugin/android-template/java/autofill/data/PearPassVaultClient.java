@@ -1,7 +1,9 @@
 package com.pears.pass.autofill.data;
 
 import android.content.Context;
+import android.os.SystemClock;
 
+import com.pears.pass.autofill.utils.PublicSuffixList;
 import com.pears.pass.autofill.utils.SecureLog;
 
 import org.json.JSONArray;
@@ -10,13 +12,21 @@ import org.json.JSONObject;
 
 import com.pears.pass.autofill.utils.VaultErrorUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 public class PearPassVaultClient {
     private static final String TAG = "PearPassVaultClient";
@@ -72,6 +82,20 @@ public class PearPassVaultClient {
         public int getValue() {
             return value;
         }
+
+        private static final API[] VALUES = values();
+
+        /**
+         * @return The name of {@code command}, used to label its metrics
+         */
+        static String nameOf(int command) {
+            for (API api : VALUES) {
+                if (api.value == command) {
+                    return api.name();
+                }
+            }
+            return "COMMAND_" + command;
+        }
     }
 
     // Properties
@@ -79,15 +103,76 @@ public class PearPassVaultClient {
     private final String storagePath;
     private final boolean debugMode;
     private final boolean readOnly;
-    private BareHelper bareHelper;
+    private WorkletTransport transport;
+    private final WorkletTransport injectedTransport;
     private boolean isWorkletInitialized = false;
     private volatile boolean isFullyInitialized = false;
     private volatile Exception initializationError = null;
     private final CompletableFuture<Void> initializationFuture = new CompletableFuture<>();
+    private volatile long initializationDurationMs = -1;
 
-    // Synchronization for IPC calls
+    // Synchronization for IPC calls. The worklet answers requests in the order
+    // it receives them and does not echo an id, so one request is in flight at
+    // a time and each reply belongs to it. Requests are kept in pendingRequests
+    // (keyed by a local id used for logging and cancellation) until it arrives.
     private final Object ipcLock = new Object();
-    private CompletableFuture<Map<String, Object>> currentRequest = null;
+    private final AtomicLong nextRequestId = new AtomicLong(1);
+    private final Map<Long, PendingRequest> pendingRequests = new LinkedHashMap<>();
+    private final ArrayDeque<PendingRequest> queuedRequests = new ArrayDeque<>();
+
+    // Session-scoped cache for master vault metadata that one unlock reads
+    // repeatedly. Any command not listed here may change it and invalidates the
+    // cache. Besides reads, that leaves opening and closing the active vault:
+    // switching vaults changes none of the master vault list, the master
+    // encryption entry, or the encryption status.
+    private static final String MASTER_ENCRYPTION_KEY = "masterEncryption";
+    private static final Set<Integer> CACHE_PRESERVING_COMMANDS = new HashSet<>(Arrays.asList(
+            API.MASTER_VAULT_GET_STATUS.getValue(),
+            API.MASTER_VAULT_GET.getValue(),
+            API.MASTER_VAULT_LIST.getValue(),
+            API.ACTIVE_VAULT_FILE_GET.getValue(),
+            API.ACTIVE_VAULT_GET_STATUS.getValue(),
+            API.ACTIVE_VAULT_LIST.getValue(),
+            API.ACTIVE_VAULT_GET.getValue(),
+            API.ENCRYPTION_GET_STATUS.getValue(),
+            API.ENCRYPTION_GET.getValue(),
+            API.ENCRYPTION_HASH_PASSWORD.getValue(),
+            API.ENCRYPTION_ENCRYPT_VAULT_KEY_WITH_HASHED_PASSWORD.getValue(),
+            API.ENCRYPTION_ENCRYPT_VAULT_WITH_KEY.getValue(),
+            API.ENCRYPTION_DECRYPT_VAULT_KEY.getValue(),
+            API.ENCRYPTION_GET_DECRYPTION_KEY.getValue(),
+            API.ACTIVE_VAULT_INIT.getValue(),
+            API.ACTIVE_VAULT_CLOSE.getValue()));
+    private final MetadataCache metadataCache = new MetadataCache();
+
+    // Decrypted keys of vaults unlocked this session, wiped when the vaults are locked
+    private final VaultKeyCache vaultKeyCache = new VaultKeyCache();
+
+    // The worklet has one active vault. openVault and VaultHandle operations are
+    // chained so that each runs with its own vault active, without interleaving.
+    private volatile String activeVaultId;
+    private final Object vaultChainLock = new Object();
+    private CompletableFuture<?> vaultChain = CompletableFuture.completedFuture(null);
+
+    private static class PendingRequest {
+        final long id;
+        final int command;
+        final Map<String, Object> data;
+        final CompletableFuture<Object> future;
+
+        // Timings for IpcMetrics, in System.nanoTime() terms
+        final long queuedAtNanos = System.nanoTime();
+        volatile long queueWaitNanos;
+        volatile long encodeNanos;
+        volatile long sentAtNanos;
+
+        PendingRequest(long id, int command, Map<String, Object> data, CompletableFuture<Object> future) {
+            this.id = id;
+            this.command = command;
+            this.data = data;
+            this.future = future;
+        }
+    }
 
     // Data Classes
     public static class VaultStatus {
@@ -180,10 +265,21 @@ public class PearPassVaultClient {
     }
 
     public PearPassVaultClient(Context context, String storagePath, boolean debugMode, boolean readOnly) {
+        this(context, storagePath, debugMode, readOnly, null);
+    }
+
+    /**
+     * @param workletTransport Transport to use instead of starting the Bare worklet,
+     *                         e.g. an in-memory worklet in tests; null for the real worklet
+     */
+    public PearPassVaultClient(Context context, String storagePath, boolean debugMode, boolean readOnly,
+                               WorkletTransport workletTransport) {
         this.context = context;
+        this.injectedTransport = workletTransport;
         this.storagePath = storagePath;
         this.debugMode = debugMode;
         this.readOnly = readOnly;
+        final long initStartedAt = SystemClock.elapsedRealtime();
 
         // Initialize the worklet synchronously on the current thread
         try {
@@ -210,6 +306,10 @@ public class PearPassVaultClient {
                         initializationError = new RuntimeException("Failed to initialize", error);
                         initializationFuture.completeExceptionally(initializationError);
                     } else {
+                        initializationDurationMs = SystemClock.elapsedRealtime() - initStartedAt;
+                        WorkletTransport helper = transport;
+                        SecureLog.i(TAG, "Cold start: " + initializationDurationMs + "ms total, worklet start "
+                                + (helper != null ? helper.getLastStartDurationMs() : -1) + "ms");
                         log("Vault client fully initialized with readOnly=" + readOnly);
                         isFullyInitialized = true;
                         initializationFuture.complete(null);
@@ -222,31 +322,71 @@ public class PearPassVaultClient {
         }
     }
 
+    /**
+     * @return Number of metadata lookups (vault list, master encryption,
+     *         encryption status) answered from the session cache
+     */
+    public long getMetadataCacheHits() {
+        return metadataCache.getHits();
+    }
+
+    /**
+     * @return Number of metadata lookups that needed a worklet round trip
+     */
+    public long getMetadataCacheMisses() {
+        return metadataCache.getMisses();
+    }
+
+    /**
+     * @return Time from construction until the worklet accepted the storage
+     *         configuration, or -1 if initialization has not completed
+     */
+    public long getInitializationDurationMs() {
+        return initializationDurationMs;
+    }
+
     // Ensures the vault client is fully initialized before use
     public CompletableFuture<Void> waitForInitialization() {
         return initializationFuture;
     }
 
     private void initializeWorklet() throws Exception {
-        if (bareHelper != null) {
+        if (transport != null) {
             log("Worklet already initialized");
             return;
         }
 
         log("Starting BareKit initialization with BareHelper");
 
-        // Create BareHelper with bundle name, type, and 64MB memory limit
-        bareHelper = new BareHelper(context, "extension", "bundle", 64);
-        log("BareHelper created successfully");
+        if (injectedTransport != null) {
+            transport = injectedTransport;
+        } else {
+            // Create BareHelper with bundle name, type, and 64MB memory limit
+            transport = new BareHelper(context, "extension", "bundle", 64);
+        }
+        log("Worklet transport created successfully");
 
         // Start the worklet
         log("Starting worklet...");
 
-        boolean success = bareHelper.startWorklet();
+        boolean success = transport.startWorklet();
 
         if (success) {
             log("Worklet started successfully with BareHelper");
             isWorkletInitialized = true;
+
+            // One long-lived reader serves every request
+            transport.startReading(new WorkletTransport.MessageListener() {
+                @Override
+                public void onMessage(String message, int byteLength) {
+                    handleReply(message, byteLength);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    handleReadError(error);
+                }
+            });
         } else {
             logError("Failed to start worklet with BareHelper");
             isWorkletInitialized = false;
@@ -256,10 +396,59 @@ public class PearPassVaultClient {
         log("BareKit initialization completed");
     }
 
+    /**
+     * Receives records from {@link #activeVaultListStream} one chunk at a time.
+     * Called on a background thread, in vault order.
+     */
+    public interface RecordChunkListener {
+        void onRecords(List<Map<String, Object>> records);
+    }
+
     // Request Handling
     private CompletableFuture<Map<String, Object>> sendRequest(int command, Map<String, Object> data) {
         CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
 
+        sendRawRequest(command, data).whenComplete((dataObj, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+                return;
+            }
+            try {
+                // The data field can be either a dictionary, string, or array
+                Map<String, Object> result = null;
+
+                if (dataObj instanceof JSONObject) {
+                    result = VaultRecord.toMap((JSONObject) dataObj);
+                } else if (dataObj instanceof String) {
+                    result = new HashMap<>();
+                    result.put("value", dataObj);
+                } else if (dataObj instanceof JSONArray) {
+                    result = new HashMap<>();
+                    result.put("array", VaultRecord.toList((JSONArray) dataObj));
+                }
+
+                if (command == API.ENCRYPTION_INIT.getValue()) {
+                    Map<String, Object> initResult = result;
+                    log(() -> "ENCRYPTION_INIT: Successfully parsed response, result: " + initResult);
+                }
+                future.complete(result);
+            } catch (JSONException e) {
+                logError("Failed to parse response for command " + command + ": " + e.getMessage());
+                future.completeExceptionally(new PearPassVaultException("Failed to parse response: " + e.getMessage()));
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Send a request and complete with the reply's raw {@code data} value
+     * (JSONObject, JSONArray, String, or null) without converting it to Java
+     * collections, so callers can decode large replies incrementally.
+     */
+    private CompletableFuture<Object> sendRawRequest(int command, Map<String, Object> data) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+
         // Allow STORAGE_PATH_SET and SET_CORE_STORE_OPTIONS commands during initialization
         if (command != API.STORAGE_PATH_SET.getValue() &&
             command != API.SET_CORE_STORE_OPTIONS.getValue() &&
@@ -268,34 +457,57 @@ public class PearPassVaultClient {
             return future;
         }
 
-        if (bareHelper == null || !isWorkletInitialized) {
+        if (transport == null || !isWorkletInitialized) {
             future.completeExceptionally(new PearPassVaultException("Worklet is not initialized"));
             return future;
         }
 
-        // Wait for any existing request to complete before proceeding
-        CompletableFuture<Map<String, Object>> previousRequest;
-        synchronized (ipcLock) {
-            previousRequest = currentRequest;
-            currentRequest = future;
+        if (command == API.ACTIVE_VAULT_CLOSE.getValue() || command == API.MASTER_VAULT_CLOSE.getValue()) {
+            activeVaultId = null;
         }
 
-        // If there's a previous request, wait for it to complete
-        if (previousRequest != null) {
-            log("Request command " + command + " waiting for previous request to complete");
-            previousRequest.whenComplete((result, error) -> {
-                log("Previous request completed, now processing command " + command);
-                executeRequest(command, data, future);
-            });
-        } else {
-            // No previous request, execute immediately
-            executeRequest(command, data, future);
+        if (!CACHE_PRESERVING_COMMANDS.contains(command)) {
+            // Drop cached metadata both before the write and once it has been
+            // applied (see settleRequest), so no read racing with it can
+            // repopulate a stale value
+            metadataCache.invalidate();
         }
 
+        PendingRequest request = new PendingRequest(nextRequestId.getAndIncrement(), command, data, future);
+
+        synchronized (ipcLock) {
+            queuedRequests.add(request);
+            if (!pendingRequests.isEmpty()) {
+                log("Request command " + command + " queued behind " + pendingRequests.size() + " in-flight request(s)");
+            }
+        }
+
+        drainQueuedRequests();
         return future;
     }
 
-    private void executeRequest(int command, Map<String, Object> data, CompletableFuture<Map<String, Object>> future) {
+    /**
+     * Send the next queued request once nothing is in flight.
+     */
+    private void drainQueuedRequests() {
+        PendingRequest request;
+        synchronized (ipcLock) {
+            if (queuedRequests.isEmpty() || !pendingRequests.isEmpty()) {
+                return;
+            }
+            request = queuedRequests.poll();
+            pendingRequests.put(request.id, request);
+        }
+
+        executeRequest(request);
+    }
+
+    private void executeRequest(PendingRequest request) {
+        long startedAt = System.nanoTime();
+        request.queueWaitNanos = startedAt - request.queuedAtNanos;
+        int command = request.command;
+        Map<String, Object> data = request.data;
+
         JSONObject message = new JSONObject();
         try {
             message.put("command", command);
@@ -304,100 +516,190 @@ public class PearPassVaultClient {
             }
             message.put("source", "android-extension");
         } catch (JSONException e) {
-            future.completeExceptionally(new PearPassVaultException("Failed to create request: " + e.getMessage()));
+            failRequest(request, new PearPassVaultException("Failed to create request: " + e.getMessage()));
             return;
         }
 
-        log("Sending request with command: " + command + ", data: " + (data != null ? data : "{}"));
+        log(() -> "Sending request " + request.id + " with command: " + command + ", data: " + (data != null ? data : "{}"));
 
         // Add extra logging for ENCRYPTION_INIT command
         if (command == API.ENCRYPTION_INIT.getValue()) {
-            log("ENCRYPTION_INIT: About to call bareHelper.send()");
-            log("ENCRYPTION_INIT: BareHelper state - " + bareHelper.toString());
-            log("ENCRYPTION_INIT: Message content: " + message.toString());
+            log("ENCRYPTION_INIT: About to call transport.post()");
+            log(() -> "ENCRYPTION_INIT: BareHelper state - " + transport);
+            log(() -> "ENCRYPTION_INIT: Message content: " + message.toString());
             log("ENCRYPTION_INIT: Current thread: " + Thread.currentThread().getName());
         }
 
+        WorkletTransport helper = transport;
+        if (helper == null) {
+            failRequest(request, new PearPassVaultException("Worklet is not initialized"));
+            return;
+        }
+
+        WorkletTransport.WriteCallback onWritten = error -> {
+            if (error != null) {
+                logError("Request command " + command + " failed with error: " + error.getMessage());
+                failRequest(request, new PearPassVaultException(error.getMessage()));
+            }
+        };
+
         try {
-            bareHelper.send(message.toString(), new BareHelper.SendCallback() {
-                @Override
-                public void onResponse(String reply, Throwable error) {
-                if (command == API.ENCRYPTION_INIT.getValue()) {
-                    log("ENCRYPTION_INIT: Callback triggered - reply: " + (reply != null ? "present" : "null")
-                        + ", error: " + (error != null ? error.getMessage() : "null"));
-                }
+            String encoded = message.toString();
+            markSent(request, startedAt);
+            helper.post(encoded, onWritten);
+        } catch (Exception e) {
+            logError("Exception in executeRequest for command " + command + ": " + e.getMessage());
+            e.printStackTrace();
+            failRequest(request, new PearPassVaultException("Failed to send request: " + e.getMessage()));
+        }
+    }
 
-                if (error != null) {
-                    logError("Request command " + command + " failed with error: " + error.getMessage());
-                    future.completeExceptionally(new PearPassVaultException(error.getMessage()));
-                    clearCurrentRequest(future);
-                } else if (reply != null) {
-                    try {
-                        JSONObject json = new JSONObject(reply);
-
-                        // Check for errors in response
-                        if (json.has("error")) {
-                            String errorMsg = json.getString("error");
-                            if (errorMsg.contains("ELOCKED")) {
-                                future.completeExceptionally(new PearPassVaultException("Vault is locked"));
-                            } else {
-                                future.completeExceptionally(new PearPassVaultException(errorMsg));
-                            }
-                            clearCurrentRequest(future);
-                        } else {
-                            // The data field can be either a dictionary, string, or array
-                            Object dataObj = json.opt("data");
-                            Map<String, Object> result = null;
-
-                            if (dataObj instanceof JSONObject) {
-                                result = jsonObjectToMap((JSONObject) dataObj);
-                            } else if (dataObj instanceof String) {
-                                result = new HashMap<>();
-                                result.put("value", dataObj);
-                            } else if (dataObj instanceof JSONArray) {
-                                result = new HashMap<>();
-                                result.put("array", jsonArrayToList((JSONArray) dataObj));
-                            }
+    private static void markSent(PendingRequest request, long startedAt) {
+        long now = System.nanoTime();
+        request.encodeNanos = now - startedAt;
+        request.sentAtNanos = now;
+    }
 
-                            if (command == API.ENCRYPTION_INIT.getValue()) {
-                                log("ENCRYPTION_INIT: Successfully parsed response, result: " + result);
-                            }
-                            future.complete(result);
-                            clearCurrentRequest(future);
-                        }
-                    } catch (JSONException e) {
-                        logError("Failed to parse response for command " + command + ": " + e.getMessage());
-                        future.completeExceptionally(new PearPassVaultException("Failed to parse response: " + e.getMessage()));
-                        clearCurrentRequest(future);
-                    }
+    /**
+     * Called by the BareHelper read loop for JSON replies.
+     */
+    private void handleReply(String reply, int byteLength) {
+        long receivedAt = System.nanoTime();
+        JSONObject json;
+        try {
+            json = new JSONObject(reply);
+        } catch (JSONException e) {
+            handleUnparseableReply(e);
+            return;
+        }
+        handleReply(json, receivedAt, System.nanoTime() - receivedAt, byteLength);
+    }
+
+    private void handleUnparseableReply(Exception e) {
+        PendingRequest request = takeOldestPendingRequest();
+        if (request != null) {
+            logError("Failed to parse response for command " + request.command + ": " + e.getMessage());
+            completeRequestExceptionally(request, new PearPassVaultException("Failed to parse response: " + e.getMessage()));
+        } else {
+            logError("Failed to parse unsolicited reply: " + e.getMessage());
+        }
+        drainQueuedRequests();
+    }
+
+    /**
+     * Replies belong to the oldest in-flight request.
+     *
+     * @param receivedAt Time the reply arrived, in System.nanoTime() terms
+     * @param parseNanos Time spent decoding the reply
+     * @param replySize  Reply size in bytes
+     */
+    private void handleReply(JSONObject json, long receivedAt, long parseNanos, int replySize) {
+        PendingRequest request = takeOldestPendingRequest();
+
+        if (request == null) {
+            log("Dropping reply with no matching request");
+            drainQueuedRequests();
+            return;
+        }
+
+        IpcMetrics.recordReply(API.nameOf(request.command), request.queueWaitNanos, request.encodeNanos,
+                receivedAt - request.sentAtNanos, parseNanos, replySize);
+        completeRequest(request, json);
+        drainQueuedRequests();
+    }
+
+    private void handleReadError(Throwable error) {
+        // A broken read leaves every in-flight reply unaccounted for
+        List<PendingRequest> inFlight;
+        synchronized (ipcLock) {
+            inFlight = new ArrayList<>(pendingRequests.values());
+            pendingRequests.clear();
+        }
+        for (PendingRequest request : inFlight) {
+            logError("Request command " + request.command + " failed with error: " + error.getMessage());
+            completeRequestExceptionally(request, new PearPassVaultException(error.getMessage()));
+        }
+        drainQueuedRequests();
+    }
+
+    /**
+     * Invalidate the metadata cache once a write has settled, before its
+     * future completes: callers chained on the write may start loading
+     * metadata right away, and those loads must not be dropped.
+     */
+    private void settleRequest(PendingRequest request) {
+        if (!CACHE_PRESERVING_COMMANDS.contains(request.command)) {
+            metadataCache.invalidate();
+        }
+    }
+
+    private void completeRequest(PendingRequest request, JSONObject json) {
+        int command = request.command;
+        CompletableFuture<Object> future = request.future;
+        settleRequest(request);
+
+        if (command == API.ENCRYPTION_INIT.getValue()) {
+            log("ENCRYPTION_INIT: Reply received for request " + request.id);
+        }
+
+        try {
+            // Check for errors in response
+            if (json.has("error")) {
+                IpcMetrics.recordFailure(API.nameOf(command));
+                String errorMsg = json.getString("error");
+                if (errorMsg.contains("ELOCKED")) {
+                    future.completeExceptionally(new PearPassVaultException("Vault is locked"));
                 } else {
-                    if (command == API.ENCRYPTION_INIT.getValue()) {
-                        log("ENCRYPTION_INIT: Received null response");
-                    }
-                    future.complete(null);
-                    clearCurrentRequest(future);
-                }
+                    future.completeExceptionally(new PearPassVaultException(errorMsg));
                 }
-            });
-
-            if (command == API.ENCRYPTION_INIT.getValue()) {
-                log("ENCRYPTION_INIT: bareHelper.send() call completed without immediate crash");
+                return;
             }
 
-        } catch (Exception e) {
-            logError("Exception in executeRequest for command " + command + ": " + e.getMessage());
-            e.printStackTrace();
-            future.completeExceptionally(new PearPassVaultException("Failed to send request: " + e.getMessage()));
-            clearCurrentRequest(future);
+            Object dataObj = json.opt("data");
+            future.complete(dataObj == JSONObject.NULL ? null : dataObj);
+        } catch (JSONException e) {
+            logError("Failed to parse response for command " + command + ": " + e.getMessage());
+            future.completeExceptionally(new PearPassVaultException("Failed to parse response: " + e.getMessage()));
         }
     }
 
-    private void clearCurrentRequest(CompletableFuture<Map<String, Object>> completedFuture) {
+    private PendingRequest takeOldestPendingRequest() {
         synchronized (ipcLock) {
-            if (currentRequest == completedFuture) {
-                currentRequest = null;
-                log("Current request cleared, ready for next request");
+            java.util.Iterator<PendingRequest> it = pendingRequests.values().iterator();
+            if (!it.hasNext()) {
+                return null;
             }
+            PendingRequest oldest = it.next();
+            it.remove();
+            return oldest;
+        }
+    }
+
+    private void failRequest(PendingRequest request, Exception error) {
+        synchronized (ipcLock) {
+            pendingRequests.remove(request.id);
+            queuedRequests.remove(request);
+        }
+        completeRequestExceptionally(request, error);
+        drainQueuedRequests();
+    }
+
+    private void completeRequestExceptionally(PendingRequest request, Exception error) {
+        settleRequest(request);
+        IpcMetrics.recordFailure(API.nameOf(request.command));
+        request.future.completeExceptionally(error);
+    }
+
+    private void failAllRequests(Exception error) {
+        List<PendingRequest> abandoned;
+        synchronized (ipcLock) {
+            abandoned = new ArrayList<>(pendingRequests.values());
+            abandoned.addAll(queuedRequests);
+            pendingRequests.clear();
+            queuedRequests.clear();
+        }
+        for (PendingRequest request : abandoned) {
+            completeRequestExceptionally(request, error);
         }
     }
 
@@ -469,11 +771,21 @@ public class PearPassVaultClient {
     }
 
     public CompletableFuture<Map<String, Object>> vaultsGet(String key) {
+        if (MASTER_ENCRYPTION_KEY.equals(key)) {
+            // Callers may modify the returned map, so hand each one a copy
+            return metadataCache.get("vaultsGet:" + key, () -> loadVaultsGet(key))
+                    .thenApply(HashMap::new);
+        }
+        return loadVaultsGet(key);
+    }
+
+    private CompletableFuture<Map<String, Object>> loadVaultsGet(String key) {
         return sendRequest(API.MASTER_VAULT_GET.getValue(), createMap("key", key))
                 .thenApply(result -> result != null ? result : new HashMap<>());
     }
 
     public CompletableFuture<Void> vaultsClose() {
+        vaultKeyCache.clear();
         return sendRequest(API.MASTER_VAULT_CLOSE.getValue(), null)
                 .thenAccept(result -> {
                     if (result != null && result.containsKey("error")) {
@@ -495,7 +807,7 @@ public class PearPassVaultClient {
     public CompletableFuture<List<Map<String, Object>>> vaultsList(String filterKey) {
         return sendRequest(API.MASTER_VAULT_LIST.getValue(), createMap("filterKey", filterKey))
                 .thenApply(result -> {
-                    log("vaultsList raw result: " + (result != null ? result : "{}"));
+                    log(() -> "vaultsList raw result: " + (result != null ? result : "{}"));
 
                     if (result != null) {
                         if (result.containsKey("array")) {
@@ -518,10 +830,19 @@ public class PearPassVaultClient {
                 });
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * List the master vault's vaults. Cached until the next write command, so
+     * the lookups made while unlocking a vault reuse one MASTER_VAULT_LIST reply.
+     */
     public CompletableFuture<List<Vault>> listVaults() {
+        return metadataCache.get("vaults", this::loadVaults)
+                .thenApply(ArrayList::new);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<List<Vault>> loadVaults() {
         return vaultsList("vault/").thenApply(vaults -> {
-            log("Raw vaults response: " + vaults);
+            log(() -> "Raw vaults response: " + vaults);
             log("Number of vaults received: " + vaults.size());
 
             List<Vault> vaultList = new ArrayList<>();
@@ -531,7 +852,7 @@ public class PearPassVaultClient {
                 String name = (String) vaultDict.get("name");
 
                 if (id == null || name == null) {
-                    log("Skipping vault with missing id or name: " + vaultDict);
+                    log(() -> "Skipping vault with missing id or name: " + vaultDict);
                     continue;
                 }
 
@@ -632,9 +953,25 @@ public class PearPassVaultClient {
         Map<String, Object> params = new HashMap<>();
         params.put("id", id);
         params.put("encryptionKey", encryptionKey);
+        return sendActiveVaultInit(id, params);
+    }
 
+    /**
+     * Same as {@link #activeVaultInit(String, String)} for a key held as bytes; the
+     * key only becomes a String in the request itself. The caller wipes the array.
+     */
+    private CompletableFuture<Map<String, Object>> activeVaultInit(String id, byte[] encryptionKey) {
+        log("Initializing active vault with id: " + id);
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        params.put("encryptionKey", new String(encryptionKey, StandardCharsets.UTF_8));
+        return sendActiveVaultInit(id, params);
+    }
+
+    private CompletableFuture<Map<String, Object>> sendActiveVaultInit(String id, Map<String, Object> params) {
         return sendRequest(API.ACTIVE_VAULT_INIT.getValue(), params)
                 .thenApply(result -> {
+                    activeVaultId = id;
                     if (result == null) {
                         result = new HashMap<>();
                         result.put("success", true);
@@ -699,11 +1036,117 @@ public class PearPassVaultClient {
                 });
     }
 
+    /**
+     * Hand the active vault's records to {@code listener} in chunks of {@code chunkSize}.
+     *
+     * Nothing is streamed from the worklet: it answers with one full reply,
+     * which is received completely first. Only the conversion from JSON into
+     * maps is chunked, on the Java side, so callers can render the first
+     * records before the whole vault has been converted.
+     *
+     * @return Future completing with the number of records delivered
+     */
+    public CompletableFuture<Integer> activeVaultListStream(String filterKey, int chunkSize, RecordChunkListener listener) {
+        String filter = filterKey != null ? filterKey : "record/";
+        int size = Math.max(1, chunkSize);
+        log("Streaming active vault records with filter: " + filter + ", chunk size: " + size);
+
+        return sendRawRequest(API.ACTIVE_VAULT_LIST.getValue(), createMap("filterKey", filter))
+                .thenApplyAsync(dataObj -> {
+                    JSONArray array = null;
+                    if (dataObj instanceof JSONArray) {
+                        array = (JSONArray) dataObj;
+                    } else if (dataObj instanceof JSONObject) {
+                        array = ((JSONObject) dataObj).optJSONArray("data");
+                    }
+
+                    if (array == null) {
+                        log("No records found in active vault");
+                        return 0;
+                    }
+
+                    int delivered = 0;
+                    List<Map<String, Object>> chunk = new ArrayList<>(size);
+                    try {
+                        for (int i = 0; i < array.length(); i++) {
+                            Object value = array.opt(i);
+                            if (!(value instanceof JSONObject)) {
+                                continue;
+                            }
+                            chunk.add(VaultRecord.toMap((JSONObject) value));
+                            if (chunk.size() == size) {
+                                listener.onRecords(chunk);
+                                delivered += chunk.size();
+                                chunk = new ArrayList<>(size);
+                            }
+                        }
+                    } catch (JSONException e) {
+                        logError("Failed to parse streamed records: " + e.getMessage());
+                        throw new PearPassVaultException("Failed to parse response: " + e.getMessage());
+                    }
+
+                    if (!chunk.isEmpty()) {
+                        listener.onRecords(chunk);
+                        delivered += chunk.size();
+                    }
+
+                    log("Streamed " + delivered + " records from active vault");
+                    return delivered;
+                });
+    }
+
+    /**
+     * List the active vault's records that match {@code query} as lazy
+     * {@link VaultRecord} views.
+     *
+     * Records are matched on the raw reply and nothing is converted into Maps,
+     * so callers only pay for the fields they actually read.
+     */
+    public CompletableFuture<List<VaultRecord>> activeVaultRecords(RecordQuery query) {
+        log("Searching active vault records");
+
+        return sendRawRequest(API.ACTIVE_VAULT_LIST.getValue(), createMap("filterKey", "record/"))
+                .thenApply(dataObj -> {
+                    List<VaultRecord> records = VaultRecord.fromReply(dataObj);
+                    PublicSuffixList suffixes = PublicSuffixList.get(context);
+                    List<VaultRecord> matches = new ArrayList<>();
+                    for (VaultRecord record : records) {
+                        if (query.matches(record, suffixes)) {
+                            matches.add(record);
+                        }
+                    }
+                    log("Matched " + matches.size() + " of " + records.size() + " records");
+                    return matches;
+                });
+    }
+
+    /**
+     * List the active vault's records that match {@code query}.
+     *
+     * Records are matched on the raw reply and only matches are converted,
+     * so parsing cost scales with the number of matches rather than the size
+     * of the vault.
+     */
+    public CompletableFuture<List<Map<String, Object>>> activeVaultSearch(RecordQuery query) {
+        return activeVaultRecords(query).thenApply(records -> {
+            List<Map<String, Object>> matches = new ArrayList<>(records.size());
+            try {
+                for (VaultRecord record : records) {
+                    matches.add(record.toMap());
+                }
+            } catch (JSONException e) {
+                logError("Failed to parse search results: " + e.getMessage());
+                throw new PearPassVaultException("Failed to parse response: " + e.getMessage());
+            }
+            return matches;
+        });
+    }
+
     public CompletableFuture<Map<String, Object>> activeVaultGet(String key) {
         log("Getting from active vault with key: " + key);
         return sendRequest(13, createMap("key", key))
                 .thenApply(result -> {
-                    log("Active vault get result for key '" + key + "': " + (result != null ? result : "{}"));
+                    log(() -> "Active vault get result for key '" + key + "': " + (result != null ? result : "{}"));
                     return result != null ? result : new HashMap<>();
                 });
     }
@@ -724,7 +1167,7 @@ public class PearPassVaultClient {
         log("Getting encryption key for vault: " + vault.name);
 
         return vaultsGet("masterEncryption").thenCompose(masterEncryptionData -> {
-            log("Master encryption data: " + masterEncryptionData);
+            log(() -> "Master encryption data: " + masterEncryptionData);
 
             String hashedPassword = (String) masterEncryptionData.get("hashedPassword");
             if (hashedPassword == null) {
@@ -775,7 +1218,7 @@ public class PearPassVaultClient {
         log("Initializing encryption subsystem");
         return sendRequest(API.ENCRYPTION_INIT.getValue(), null)
                 .thenApply(result -> {
-                    log("Encryption init result: " + result);
+                    log(() -> "Encryption init result: " + result);
                     return result != null ? result : new HashMap<String, Object>();
                 })
                 .exceptionally(throwable -> {
@@ -803,6 +1246,10 @@ public class PearPassVaultClient {
     }
 
     public CompletableFuture<EncryptionStatus> encryptionGetStatus() {
+        return metadataCache.get("encryptionStatus", this::loadEncryptionStatus);
+    }
+
+    private CompletableFuture<EncryptionStatus> loadEncryptionStatus() {
         return sendRequest(API.ENCRYPTION_GET_STATUS.getValue(), null)
                 .thenApply(result -> {
                     boolean status = result != null && Boolean.TRUE.equals(result.get("status"));
@@ -843,10 +1290,10 @@ public class PearPassVaultClient {
                     log("Encryption not initialized, initializing now (attempting ENCRYPTION_INIT)");
                     log("Current thread: " + Thread.currentThread().getName());
                     log("Vault client worklet status: " + isWorkletInitialized);
-                    log("BareHelper instance: " + (bareHelper != null ? "present" : "null"));
+                    log("BareHelper instance: " + (transport != null ? "present" : "null"));
 
                     return encryptionInit().thenCompose(initResult -> {
-                        log("ENCRYPTION_INIT completed, result: " + initResult);
+                        log(() -> "ENCRYPTION_INIT completed, result: " + initResult);
 
                         // Check if this was a shared instance (lock error detected)
                         boolean isSharedInstance = initResult != null &&
@@ -1225,7 +1672,7 @@ public class PearPassVaultClient {
 
                                 String encryptionKey = extractValue(decryptedData, "value", "key", "data");
                                 if (encryptionKey == null) {
-                                    log("No encryption key found in response: " + decryptedData);
+                                    log(() -> "No encryption key found in response: " + decryptedData);
                                     throw new RuntimeException("Failed to decrypt vault key - incorrect password");
                                 }
 
@@ -1266,10 +1713,19 @@ public class PearPassVaultClient {
                 // If vault has no encryption, it's not protected
                 if (vault.encryption == null) {
                     log("Vault " + vault.name + " is not protected, initializing directly");
-                    return activeVaultInit(vault.id, null)
+                    return activeVaultInit(vault.id, (String) null)
                         .thenApply(result -> true);
                 }
 
+                // Already unlocked this session: skip key derivation and decryption,
+                // unless a password was given, which must then be checked
+                if (password == null) {
+                    CompletableFuture<Boolean> cached = initActiveVaultFromCache(vault);
+                    if (cached != null) {
+                        return cached;
+                    }
+                }
+
                 // Check if vault has its own salt (for password-protected vaults)
                 String saltToUse = vault.encryption.salt;
 
@@ -1304,7 +1760,7 @@ public class PearPassVaultClient {
                             }
 
                             // Initialize the active vault with the decrypted key
-                            return activeVaultInit(vault.id, encryptionKey)
+                            return initActiveVaultAndCacheKey(vault.id, encryptionKey.getBytes(StandardCharsets.UTF_8))
                                 .thenApply(result -> true);
                         });
                 }
@@ -1337,14 +1793,14 @@ public class PearPassVaultClient {
 
                                 String encryptionKey = extractValue(decryptedData, "value", "key", "data");
                                 if (encryptionKey == null) {
-                                    log("No encryption key found in response: " + decryptedData);
+                                    log(() -> "No encryption key found in response: " + decryptedData);
                                     throw new RuntimeException("Failed to decrypt vault key - incorrect password");
                                 }
 
                                 log("Successfully decrypted vault key, initializing active vault");
 
                                 // Initialize the active vault with the decrypted key
-                                return activeVaultInit(vault.id, encryptionKey)
+                                return initActiveVaultAndCacheKey(vault.id, encryptionKey.getBytes(StandardCharsets.UTF_8))
                                     .thenApply(result -> {
                                         log("Active vault initialized successfully");
                                         return true;
@@ -1489,10 +1945,19 @@ public class PearPassVaultClient {
                 // If vault has no encryption, it's not protected
                 if (vault.encryption == null) {
                     log("Vault " + vault.name + " is not protected, initializing directly");
-                    return activeVaultInit(vault.id, null)
+                    return activeVaultInit(vault.id, (String) null)
                         .thenApply(result -> true);
                 }
 
+                // Already unlocked this session: skip key derivation and decryption,
+                // unless a password was given, which must then be checked
+                if (password == null) {
+                    CompletableFuture<Boolean> cached = initActiveVaultFromCache(vault);
+                    if (cached != null) {
+                        return cached;
+                    }
+                }
+
                 // Check if vault has its own salt (for password-protected vaults)
                 String saltToUse = vault.encryption.salt;
 
@@ -1514,7 +1979,7 @@ public class PearPassVaultClient {
                             if (encryptionKey == null) {
                                 throw new RuntimeException("Failed to decrypt vault key");
                             }
-                            return activeVaultInit(vault.id, encryptionKey)
+                            return initActiveVaultAndCacheKey(vault.id, encryptionKey.getBytes(StandardCharsets.UTF_8))
                                 .thenApply(result -> true);
                         });
                 }
@@ -1543,7 +2008,7 @@ public class PearPassVaultClient {
                                     throw new RuntimeException("Failed to decrypt vault key - incorrect password");
                                 }
                                 log("Successfully decrypted vault key, initializing active vault (buffer)");
-                                return activeVaultInit(vault.id, encryptionKey)
+                                return initActiveVaultAndCacheKey(vault.id, encryptionKey.getBytes(StandardCharsets.UTF_8))
                                     .thenApply(result -> {
                                         log("Active vault initialized successfully (buffer)");
                                         return true;
@@ -1557,13 +2022,175 @@ public class PearPassVaultClient {
             });
     }
 
+    /**
+     * @return true if {@code vaultId} was unlocked this session and can be opened
+     *         again without its password
+     */
+    public boolean hasCachedVaultKey(String vaultId) {
+        return vaultKeyCache.contains(vaultId);
+    }
+
+    /**
+     * Open a vault with its freshly decrypted key and cache the key for the session.
+     *
+     * @param encryptionKey The decrypted key; the cache takes ownership of it, or
+     *                      it is wiped if the vault fails to open
+     */
+    private CompletableFuture<Map<String, Object>> initActiveVaultAndCacheKey(String vaultId, byte[] encryptionKey) {
+        return activeVaultInit(vaultId, encryptionKey)
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        vaultKeyCache.put(vaultId, encryptionKey);
+                    } else {
+                        com.pears.pass.autofill.utils.SecureBufferUtils.clearBuffer(encryptionKey);
+                    }
+                });
+    }
+
+    /**
+     * Open a vault with its cached key.
+     *
+     * @return The future of the open, or null if no key is cached for the vault
+     */
+    private CompletableFuture<Boolean> initActiveVaultFromCache(Vault vault) {
+        byte[] encryptionKey = vaultKeyCache.get(vault.id);
+        if (encryptionKey == null) {
+            return null;
+        }
+        log("Vault " + vault.name + " unlocked this session, using cached key");
+        return activeVaultInit(vault.id, encryptionKey)
+                .thenApply(result -> true)
+                .whenComplete((result, error) -> {
+                    com.pears.pass.autofill.utils.SecureBufferUtils.clearBuffer(encryptionKey);
+                    if (error != null) {
+                        // The vault's password may have changed; require it again
+                        vaultKeyCache.remove(vault.id);
+                    }
+                });
+    }
+
+    // ========================
+    // Vault Handles
+    // ========================
+
+    /**
+     * Make {@code vaultId} the active vault and return a handle to it.
+     *
+     * Every vault switch goes through here (or through a {@link VaultHandle}),
+     * so switches are queued behind each other and behind running handle
+     * operations such as {@link #searchAllVaults}. Without a password, only
+     * vaults that open without prompting qualify: unprotected vaults, vaults
+     * encrypted with the master password, and vaults unlocked this session.
+     *
+     * @param password The vault's password, or null. Must stay intact until the
+     *                 future completes; the caller wipes it.
+     * @return Future failing with {@link PearPassVaultException} if the vault
+     *         cannot be opened
+     */
+    public CompletableFuture<VaultHandle> openVault(String vaultId, byte[] password) {
+        return enqueueVaultOperation(() -> activateVault(vaultId, password)
+                .thenApply(v -> new VaultHandle(this, vaultId)));
+    }
+
+    public CompletableFuture<VaultHandle> openVault(String vaultId) {
+        return openVault(vaultId, null);
+    }
+
+    /**
+     * Search every vault that can be opened without prompting.
+     *
+     * The worklet holds one active vault, so vaults are visited one after
+     * another, each switch reusing the session's cached key, rather than in
+     * parallel. The search is a single operation on the vault chain: the
+     * previously active vault is active again before anything queued after it
+     * runs. Vaults that fail to open are skipped.
+     *
+     * @return Matches per vault id, in vault list order
+     */
+    public CompletableFuture<Map<String, List<VaultRecord>>> searchAllVaults(RecordQuery query) {
+        return enqueueVaultOperation(() -> {
+            String previousVaultId = activeVaultId;
+            Map<String, List<VaultRecord>> results = new LinkedHashMap<>();
+
+            return listVaults().thenCompose(vaults -> {
+                CompletableFuture<Void> search = CompletableFuture.completedFuture(null);
+                for (Vault vault : vaults) {
+                    if (!canOpenWithoutPassword(vault)) {
+                        continue;
+                    }
+                    search = search.thenCompose(v -> activateVault(vault.id, null)
+                            .thenCompose(opened -> activeVaultRecords(query))
+                            .handle((records, error) -> {
+                                if (error != null) {
+                                    logError("Skipping vault " + vault.name + " in search: " + error.getMessage());
+                                } else {
+                                    results.put(vault.id, records);
+                                }
+                                return null;
+                            }));
+                }
+                return search;
+            }).thenCompose(v -> {
+                if (previousVaultId == null) {
+                    return CompletableFuture.completedFuture(results);
+                }
+                return activateVault(previousVaultId, null).thenApply(opened -> results);
+            });
+        });
+    }
+
+    /**
+     * Run {@code operation} once {@code vaultId} is the active vault, after every
+     * previously queued vault operation has finished.
+     */
+    <T> CompletableFuture<T> runInVault(String vaultId, Supplier<CompletableFuture<T>> operation) {
+        return enqueueVaultOperation(() -> activateVault(vaultId, null).thenCompose(v -> operation.get()));
+    }
+
+    private <T> CompletableFuture<T> enqueueVaultOperation(Supplier<CompletableFuture<T>> operation) {
+        synchronized (vaultChainLock) {
+            CompletableFuture<T> next = vaultChain
+                    .handle((result, error) -> null)
+                    .thenCompose(v -> operation.get());
+            vaultChain = next;
+            return next;
+        }
+    }
+
+    /**
+     * Switch the worklet's active vault. A password always forces a fresh
+     * unlock, so it is checked even if the vault is already active.
+     */
+    private CompletableFuture<Void> activateVault(String vaultId, byte[] password) {
+        if (password == null && vaultId.equals(activeVaultId)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return activeVaultClose()
+                .handle((result, error) -> null)
+                .thenCompose(v -> password != null
+                        ? getVaultById(vaultId, password)
+                        : getVaultById(vaultId, (String) null))
+                .thenAccept(opened -> {
+                    if (!opened) {
+                        throw new PearPassVaultException("Failed to open vault " + vaultId);
+                    }
+                });
+    }
+
+    private boolean canOpenWithoutPassword(Vault vault) {
+        return vault.encryption == null
+                || vault.encryption.salt == null
+                || vault.encryption.salt.isEmpty()
+                || vaultKeyCache.contains(vault.id);
+    }
+
     // General Methods
     public CompletableFuture<Map<String, Object>> closeAllInstances() {
         log("Closing all vault instances and cleaning up resources");
 
         CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
 
-        if (bareHelper == null || !isWorkletInitialized) {
+        if (transport == null || !isWorkletInitialized) {
             log("Worklet not initialized, nothing to clean up");
             Map<String, Object> successResult = new HashMap<>();
             successResult.put("success", true);
@@ -1582,24 +2209,29 @@ public class PearPassVaultClient {
         }
 
         log("Destroying worklet immediately");
+        log("Metadata cache: " + metadataCache.getHits() + " hits, " + metadataCache.getMisses() + " misses");
+        metadataCache.invalidate();
+        vaultKeyCache.clear();
+        activeVaultId = null;
 
-        final BareHelper helperToDestroy = bareHelper;
-        bareHelper = null; // Immediately null out to prevent reuse
+        final WorkletTransport helperToDestroy = transport;
+        transport = null; // Immediately null out to prevent reuse
         isWorkletInitialized = false;
         isFullyInitialized = false;
 
+        // Nothing in flight will get a reply once the worklet is gone
+        failAllRequests(new PearPassVaultException("Vault client closed"));
+
         // Try to send CLOSE_ALL_INSTANCES command as best effort, but don't wait for response
         try {
-            helperToDestroy.send(message.toString(), new BareHelper.SendCallback() {
-                @Override
-                public void onResponse(String reply, Throwable error) {
-                    if (error != null) {
-                        logError("Close all instances failed: " + error.getMessage());
-                    } else {
-                        log("Close all instances command acknowledged");
-                    }
+            WorkletTransport.WriteCallback onWritten = error -> {
+                if (error != null) {
+                    logError("Close all instances failed: " + error.getMessage());
+                } else {
+                    log("Close all instances command written");
                 }
-            });
+            };
+            helperToDestroy.post(message.toString(), onWritten);
             log("CLOSE_ALL_INSTANCES command sent");
         } catch (Exception e) {
             logError("Exception sending close command (will shutdown anyway): " + e.getMessage());
@@ -1626,6 +2258,30 @@ public class PearPassVaultClient {
         return closeAllInstances();
     }
 
+    /**
+     * Close the active and master vaults but keep the worklet running, so the
+     * next session must authenticate again without paying for a cold start.
+     */
+    public CompletableFuture<Void> lockVaults() {
+        log("Locking vaults, keeping worklet warm");
+        return activeVaultClose()
+                .handle((result, error) -> null)
+                .thenCompose(v -> vaultsClose());
+    }
+
+    /**
+     * @return true while the worklet is running and initialization has not failed,
+     *         i.e. the client can be handed to another session
+     */
+    public boolean isAlive() {
+        WorkletTransport helper = transport;
+        return helper != null
+                && helper.isRunning()
+                && isWorkletInitialized
+                && initializationError == null
+                && !initializationFuture.isCompletedExceptionally();
+    }
+
     public void destroy() {
         try {
             close().get();
@@ -1870,67 +2526,21 @@ public class PearPassVaultClient {
      * Returns records where website matches OR username matches.
      * Records with BOTH empty website AND empty username are excluded.
      */
-    @SuppressWarnings("unchecked")
     public CompletableFuture<List<Map<String, Object>>> searchLoginRecords(String rpId, String username) {
         log("Searching login records for rpId=" + rpId + ", username=" + username);
 
-        return activeVaultList("record/").thenApply(records -> {
-            List<Map<String, Object>> matches = new ArrayList<>();
-
-            for (Map<String, Object> record : records) {
-                // Only process login-type records
-                String type = (String) record.get("type");
-                if (!"login".equals(type)) continue;
-
-                Map<String, Object> recordData;
-                if (record.containsKey("data") && record.get("data") instanceof Map) {
-                    recordData = (Map<String, Object>) record.get("data");
-                } else {
-                    continue;
-                }
-
-                String recordUsername = recordData.get("username") instanceof String
-                        ? ((String) recordData.get("username")).trim() : "";
-                String passkeyUsername = username != null ? username.trim() : "";
-
-                // Get websites from record
-                List<String> recordWebsites = new ArrayList<>();
-                Object websitesObj = recordData.get("websites");
-                if (websitesObj instanceof List) {
-                    for (Object w : (List<?>) websitesObj) {
-                        if (w instanceof String) {
-                            recordWebsites.add((String) w);
-                        }
-                    }
-                }
-
-                // Check if any website matches the rpId
-                boolean websiteMatches = false;
-                for (String website : recordWebsites) {
-                    if (normalizedDomainMatch(website, rpId)) {
-                        websiteMatches = true;
-                        break;
-                    }
-                }
+        if (rpId == null || rpId.trim().isEmpty()) {
+            // A record must match on website, so nothing can match an empty rpId
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
 
-                // Check if username matches (both must be non-empty)
-                boolean usernameMatches = !passkeyUsername.isEmpty() && !recordUsername.isEmpty()
-                        && passkeyUsername.equalsIgnoreCase(recordUsername);
-
-                // Skip records with both empty website and empty username
-                boolean hasNoWebsites = recordWebsites.isEmpty() || recordWebsites.stream()
-                        .allMatch(w -> w == null || w.trim().isEmpty());
-                boolean hasNoUsername = recordUsername.isEmpty();
-                if (hasNoWebsites && hasNoUsername) {
-                    continue;
-                }
-
-                // Include only if BOTH website AND username match
-                if (websiteMatches && usernameMatches) {
-                    matches.add(record);
-                }
-            }
+        // Include only if BOTH website AND username match
+        RecordQuery query = new RecordQuery()
+                .type(CredentialItem.TYPE_LOGIN)
+                .rpId(rpId)
+                .username(username);
 
+        return activeVaultSearch(query).thenApply(matches -> {
             log("Found " + matches.size() + " matching login records");
             return matches;
         });
@@ -1940,71 +2550,41 @@ public class PearPassVaultClient {
      * List passkeys in the active vault, optionally filtered by rpId.
      * Port of iOS PearPassVaultClient.listPasskeys().
      */
-    @SuppressWarnings("unchecked")
     public CompletableFuture<List<CredentialItem>> listPasskeys(String rpId) {
         log("Listing passkeys" + (rpId != null ? " for RP: " + rpId : ""));
 
-        return activeVaultList("record/").thenApply(records -> {
-            List<CredentialItem> passkeys = new ArrayList<>();
-
-            for (Map<String, Object> record : records) {
-                String id = (String) record.get("id");
-                if (id == null) continue;
-
-                Map<String, Object> recordData;
-                if (record.containsKey("data") && record.get("data") instanceof Map) {
-                    recordData = (Map<String, Object>) record.get("data");
-                } else {
-                    recordData = record;
-                }
-
-                // Only include records that have a credential field (passkeys)
-                Object credentialObj = recordData.get("credential");
-                if (!(credentialObj instanceof Map)) continue;
-
-                Map<String, Object> credentialMap = (Map<String, Object>) credentialObj;
-                String credentialId = (String) credentialMap.get("id");
-
-                // Check rpId filter
-                if (rpId != null) {
-                    boolean matches = false;
-                    Object websitesObj = recordData.get("websites");
-                    if (websitesObj instanceof List) {
-                        for (Object website : (List<?>) websitesObj) {
-                            if (website instanceof String && normalizedDomainMatch((String) website, rpId)) {
-                                matches = true;
-                                break;
-                            }
-                        }
-                    }
-                    if (!matches) continue;
-                }
-
-                String title = recordData.get("title") != null ? (String) recordData.get("title") : "Unknown";
-                String username = recordData.get("username") != null ? (String) recordData.get("username") : "";
-                String password = recordData.get("password") != null ? (String) recordData.get("password") : "";
+        RecordQuery query = new RecordQuery()
+                .passkeysOnly()
+                .rpId(rpId);
 
-                List<String> websites = new ArrayList<>();
-                Object websitesListObj = recordData.get("websites");
-                if (websitesListObj instanceof List) {
-                    for (Object w : (List<?>) websitesListObj) {
-                        if (w instanceof String) websites.add((String) w);
-                    }
-                }
+        return activeVaultRecords(query).thenApply(records -> {
+            List<CredentialItem> passkeys = new ArrayList<>();
 
-                // Parse passkey timestamp
-                long passkeyCreatedAt = 0;
-                Object passkeyTs = recordData.get("passkeyCreatedAt");
-                if (passkeyTs instanceof Number) {
-                    passkeyCreatedAt = ((Number) passkeyTs).longValue();
+            try {
+                for (VaultRecord record : records) {
+                    String id = record.getId();
+                    if (id == null) continue;
+
+                    String title = record.getDataString("title");
+                    String username = record.getUsername();
+                    String password = record.getPassword();
+
+                    // The query only returns records with a credential field (passkeys)
+                    passkeys.add(new CredentialItem(id,
+                            title != null ? title : "Unknown",
+                            username != null ? username : "",
+                            password != null ? password : "",
+                            new ArrayList<>(record.getWebsites()),
+                            true,
+                            record.getPasskeyCreatedAt(),
+                            record.getCredential(),
+                            record.getCredentialString("_privateKeyBuffer"),
+                            record.getCredentialString("_userId"),
+                            record.getCredentialString("id")));
                 }
-
-                // Private key and userId from credential
-                String privateKeyBuffer = (String) credentialMap.get("_privateKeyBuffer");
-                String userId = (String) credentialMap.get("_userId");
-
-                passkeys.add(new CredentialItem(id, title, username, password, websites,
-                        true, passkeyCreatedAt, credentialMap, privateKeyBuffer, userId, credentialId));
+            } catch (JSONException e) {
+                logError("Failed to parse passkeys: " + e.getMessage());
+                throw new PearPassVaultException("Failed to parse response: " + e.getMessage());
             }
 
             log("Found " + passkeys.size() + " passkeys");
@@ -2016,15 +2596,14 @@ public class PearPassVaultClient {
      * List unique folder names from vault records.
      * Port of iOS PearPassVaultClient.listFolders().
      */
-    @SuppressWarnings("unchecked")
     public CompletableFuture<List<String>> listFolders() {
         log("Listing folders");
 
-        return activeVaultList("record/").thenApply(records -> {
+        return activeVaultRecords(new RecordQuery()).thenApply(records -> {
             List<String> folders = new ArrayList<>();
 
-            for (Map<String, Object> record : records) {
-                String folder = (String) record.get("folder");
+            for (VaultRecord record : records) {
+                String folder = record.getFolder();
                 if (folder != null && !folder.isEmpty() && !folders.contains(folder)) {
                     folders.add(folder);
                 }
@@ -2035,35 +2614,23 @@ public class PearPassVaultClient {
         });
     }
 
-    /**
-     * Check if two domains match (handles subdomains, protocols, www).
-     * Port of iOS PearPassVaultClient.normalizedDomainMatch().
-     */
-    private boolean normalizedDomainMatch(String domain1, String domain2) {
-        String d1 = domain1.toLowerCase()
-                .replace("https://", "")
-                .replace("http://", "")
-                .replace("www.", "");
-        int slashIdx1 = d1.indexOf('/');
-        if (slashIdx1 != -1) d1 = d1.substring(0, slashIdx1);
-
-        String d2 = domain2.toLowerCase()
-                .replace("https://", "")
-                .replace("http://", "")
-                .replace("www.", "");
-        int slashIdx2 = d2.indexOf('/');
-        if (slashIdx2 != -1) d2 = d2.substring(0, slashIdx2);
-
-        return d1.equals(d2) || d1.endsWith("." + d2) || d2.endsWith("." + d1);
-    }
-
     // Helper Methods
     private void log(String message) {
-        if (debugMode) {
+        if (SecureLog.isDebugEnabled() && debugMode) {
             SecureLog.d(TAG, message);
         }
     }
 
+    /**
+     * Log a message that is only built when debug logging is on. Use for
+     * messages that stringify worklet payloads (requests, vault lists, records).
+     */
+    private void log(Supplier<String> message) {
+        if (SecureLog.isDebugEnabled() && debugMode) {
+            SecureLog.d(TAG, message.get());
+        }
+    }
+
     private void logError(String message) {
         SecureLog.e(TAG, message);
     }
@@ -2074,44 +2641,6 @@ public class PearPassVaultClient {
         return map;
     }
 
-    private static Map<String, Object> jsonObjectToMap(JSONObject jsonObject) throws JSONException {
-        Map<String, Object> map = new HashMap<>();
-        String[] keys = new String[jsonObject.length()];
-        int i = 0;
-        for (java.util.Iterator<String> it = jsonObject.keys(); it.hasNext(); i++) {
-            keys[i] = it.next();
-        }
-
-        for (String key : keys) {
-            Object value = jsonObject.get(key);
-            if (value == null || value == JSONObject.NULL) {
-                value = null;
-            } else if (value instanceof JSONObject) {
-                value = jsonObjectToMap((JSONObject) value);
-            } else if (value instanceof JSONArray) {
-                value = jsonArrayToList((JSONArray) value);
-            }
-            map.put(key, value);
-        }
-        return map;
-    }
-
-    private static List<Object> jsonArrayToList(JSONArray jsonArray) throws JSONException {
-        List<Object> list = new ArrayList<>();
-        for (int i = 0; i < jsonArray.length(); i++) {
-            Object value = jsonArray.get(i);
-            if (value == null || value == JSONObject.NULL) {
-                value = null;
-            } else if (value instanceof JSONObject) {
-                value = jsonObjectToMap((JSONObject) value);
-            } else if (value instanceof JSONArray) {
-                value = jsonArrayToList((JSONArray) value);
-            }
-            list.add(value);
-        }
-        return list;
-    }
-
     // Exception class
     public static class PearPassVaultException extends RuntimeException {
         public PearPassVaultException(String message) {
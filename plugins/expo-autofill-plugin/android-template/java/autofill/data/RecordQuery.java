@@ -0,0 +1,178 @@
+package com.pears.pass.autofill.data;
+
+import com.pears.pass.autofill.utils.PublicSuffixList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filter for {@link PearPassVaultClient#activeVaultSearch(RecordQuery)}.
+ *
+ * Matching runs on the raw JSON reply, so only records that match are
+ * converted into Java collections.
+ */
+public class RecordQuery {
+
+    private String id;
+    private String type;
+    private final List<String> domains = new ArrayList<>();
+    private final List<String> rpIds = new ArrayList<>();
+    private String username;
+    private boolean passkeysOnly = false;
+
+    /**
+     * Only match the record with this id.
+     */
+    public RecordQuery id(String id) {
+        this.id = id;
+        return this;
+    }
+
+    /**
+     * Only match records of the given type (e.g. {@link CredentialItem#TYPE_LOGIN}).
+     */
+    public RecordQuery type(String type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * Require one of the record's websites to match this domain or URL, i.e. to
+     * share its registrable domain (see {@link PublicSuffixList}). For password
+     * suggestions. May be called several times, also along with
+     * {@link #rpId(String)}; a record matches if it matches any of them.
+     * Null or empty values are ignored.
+     */
+    public RecordQuery domain(String domain) {
+        if (domain != null && !domain.trim().isEmpty()) {
+            domains.add(domain);
+        }
+        return this;
+    }
+
+    /**
+     * Require one of the record's websites to be within the scope of this
+     * WebAuthn rpId: the same host, or a subdomain or parent domain of it (see
+     * {@link PublicSuffixList#sameRpIdScope}). For passkeys, whose scope is
+     * narrower than the registrable domain. Null or empty values are ignored.
+     */
+    public RecordQuery rpId(String rpId) {
+        if (rpId != null && !rpId.trim().isEmpty()) {
+            rpIds.add(rpId);
+        }
+        return this;
+    }
+
+    /**
+     * Match the domain derived from an Android package name (com.example.app → example.com).
+     */
+    public RecordQuery packageName(String packageName) {
+        return domain(packageToDomain(packageName));
+    }
+
+    /**
+     * Guess an app's website from its package name: the first two labels
+     * reversed (com.example.app → example.com).
+     *
+     * @return The domain, or null for a null or empty package name
+     */
+    public static String packageToDomain(String packageName) {
+        if (packageName == null || packageName.isEmpty()) {
+            return null;
+        }
+        String[] parts = packageName.split("\\.");
+        return parts.length < 2 ? packageName : parts[1] + "." + parts[0];
+    }
+
+    /**
+     * Require the record's username to equal this one (case-insensitive).
+     * An empty value matches nothing, as does a record without a username.
+     */
+    public RecordQuery username(String username) {
+        this.username = username != null ? username : "";
+        return this;
+    }
+
+    /**
+     * Only match records carrying a passkey credential.
+     */
+    public RecordQuery passkeysOnly() {
+        this.passkeysOnly = true;
+        return this;
+    }
+
+    /**
+     * Check a record from the ACTIVE_VAULT_LIST reply against this query.
+     * Reads only the fields the query constrains, without converting them.
+     */
+    boolean matches(VaultRecord record, PublicSuffixList suffixes) {
+        if (id != null && !id.equals(record.getId())) {
+            return false;
+        }
+
+        if (type != null && !type.equals(record.getType())) {
+            return false;
+        }
+
+        if (passkeysOnly && !record.hasCredential()) {
+            return false;
+        }
+
+        if (username != null) {
+            String recordUsername = record.getUsername();
+            String expected = username.trim();
+            String actual = recordUsername != null ? recordUsername.trim() : "";
+            if (expected.isEmpty() || actual.isEmpty() || !expected.equalsIgnoreCase(actual)) {
+                return false;
+            }
+        }
+
+        if (!domains.isEmpty() || !rpIds.isEmpty()) {
+            for (int i = 0; i < record.getWebsiteCount(); i++) {
+                if (matchesWebsite(record.getWebsite(i), suffixes)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Check a record's websites against the query's domains and rpIds only.
+     *
+     * @return True if one of {@code websites} matches, or if the query has no
+     *         domain or rpId
+     */
+    public boolean matchesWebsites(List<String> websites, PublicSuffixList suffixes) {
+        if (domains.isEmpty() && rpIds.isEmpty()) {
+            return true;
+        }
+        if (websites != null) {
+            for (String website : websites) {
+                if (matchesWebsite(website, suffixes)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesWebsite(String website, PublicSuffixList suffixes) {
+        if (website == null) {
+            return false;
+        }
+        for (String domain : domains) {
+            if (suffixes.sameRegistrableDomain(website, domain)) {
+                return true;
+            }
+        }
+        for (String rpId : rpIds) {
+            if (suffixes.sameRpIdScope(website, rpId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
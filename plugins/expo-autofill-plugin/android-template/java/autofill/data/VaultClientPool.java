@@ -0,0 +1,238 @@
+package com.pears.pass.autofill.data;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+
+import com.pears.pass.autofill.utils.SecureLog;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-scoped holder for a shared {@link PearPassVaultClient}.
+ *
+ * Starting a worklet means loading the bundle and running STORAGE_PATH_SET and
+ * SET_CORE_STORE_OPTIONS, which dominates the time to open the autofill UI.
+ * Activities acquire the shared client instead of constructing their own and
+ * release it when they would previously have closed it. Back-to-back fills
+ * (e.g. username page, then password page) then reuse a warm worklet.
+ *
+ * When the last reference is released the vaults are locked, so the next
+ * session still has to authenticate, and the worklet itself is shut down after
+ * {@link #IDLE_TIMEOUT_MS} without a new acquire.
+ *
+ * The autofill service calls {@link #prewarm} when it connects and on fill
+ * requests, so the worklet is usually started (and the encryption status
+ * fetched) before the user taps the unlock suggestion. An unused pre-warmed
+ * worklet is shut down like any idle one, or earlier under memory pressure
+ * ({@link #onTrimMemory}).
+ *
+ * Worklets are started for pre-warming and shut down on the pool's own
+ * background thread, never on the caller's: starting one loads the bundle and
+ * closing one waits up to {@link #CLOSE_TIMEOUT_MS}.
+ */
+public final class VaultClientPool {
+    private static final String TAG = "VaultClientPool";
+
+    /** How long an unreferenced worklet is kept warm. */
+    private static final long IDLE_TIMEOUT_MS = 30_000;
+
+    /** Matches the wait the activities used for closeAllInstances. */
+    private static final long CLOSE_TIMEOUT_MS = 500;
+
+    private static final Handler handler = new Handler(startWorkerThread().getLooper());
+    private static final Runnable idleShutdown = VaultClientPool::closeIdleClient;
+
+    private static PearPassVaultClient sharedClient;
+    private static boolean sharedReadOnly;
+    private static int refCount = 0;
+
+    private VaultClientPool() {
+        // Prevent instantiation
+    }
+
+    private static HandlerThread startWorkerThread() {
+        HandlerThread thread = new HandlerThread(TAG);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Get the shared client, starting a worklet if none is warm.
+     * Every call must be balanced by {@link #release}.
+     */
+    public static PearPassVaultClient acquire(Context context, boolean debugMode, boolean readOnly) {
+        PearPassVaultClient stale = null;
+        PearPassVaultClient client;
+
+        synchronized (VaultClientPool.class) {
+            handler.removeCallbacks(idleShutdown);
+
+            if (sharedClient != null && refCount == 0
+                    && (!sharedClient.isAlive() || sharedReadOnly != readOnly)) {
+                stale = sharedClient;
+                sharedClient = null;
+            }
+
+            if (sharedClient != null && sharedReadOnly == readOnly) {
+                refCount++;
+                SecureLog.d(TAG, "Reusing warm vault client (refs: " + refCount + ")");
+                client = sharedClient;
+            } else if (sharedClient != null) {
+                // The shared worklet is in use with other store options; give this
+                // caller its own client, closed on release like before pooling.
+                SecureLog.d(TAG, "Shared client busy with readOnly=" + sharedReadOnly + ", creating dedicated client");
+                client = null;
+            } else {
+                SecureLog.d(TAG, "Starting shared vault client");
+                sharedClient = new PearPassVaultClient(context.getApplicationContext(), null, debugMode, readOnly);
+                sharedReadOnly = readOnly;
+                refCount = 1;
+                client = sharedClient;
+            }
+        }
+
+        if (stale != null) {
+            closeInBackground(stale);
+        }
+        if (client == null) {
+            client = new PearPassVaultClient(context.getApplicationContext(), null, debugMode, readOnly);
+        }
+        return client;
+    }
+
+    /**
+     * Start the shared worklet ahead of the next {@link #acquire}, unless one is
+     * already warm. Returns immediately: the worklet is started on the pool's
+     * background thread, then the storage configuration and encryption status
+     * are fetched. Nothing is unlocked.
+     */
+    public static void prewarm(Context context, boolean debugMode, boolean readOnly) {
+        Context appContext = context.getApplicationContext();
+        handler.post(() -> {
+            PearPassVaultClient client;
+            synchronized (VaultClientPool.class) {
+                if (sharedClient != null) {
+                    return;
+                }
+                SecureLog.d(TAG, "Pre-warming shared vault client");
+                sharedClient = new PearPassVaultClient(appContext, null, debugMode, readOnly);
+                sharedReadOnly = readOnly;
+                refCount = 0;
+                client = sharedClient;
+                handler.removeCallbacks(idleShutdown);
+                handler.postDelayed(idleShutdown, IDLE_TIMEOUT_MS);
+            }
+
+            client.waitForInitialization()
+                    .thenCompose(v -> client.encryptionGetStatus())
+                    .whenComplete((status, error) -> {
+                        if (error != null) {
+                            SecureLog.w(TAG, "Pre-warm failed: " + error.getMessage());
+                        } else {
+                            SecureLog.d(TAG, "Pre-warm complete in " + client.getInitializationDurationMs() + "ms");
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Drop an unreferenced worklet when the system is short of memory. A client
+     * in use by an activity is never closed here. Returns immediately; the
+     * worklet is shut down in the background.
+     *
+     * @param level The level passed to {@link ComponentCallbacks2#onTrimMemory}
+     */
+    public static void onTrimMemory(int level) {
+        boolean runningLow = level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+        if (runningLow || level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            SecureLog.d(TAG, "Memory trim (level " + level + "), releasing idle vault client");
+            handler.post(VaultClientPool::closeIdleClient);
+        }
+    }
+
+    /**
+     * Give back a client obtained from {@link #acquire}. Blocks for up to
+     * {@link #CLOSE_TIMEOUT_MS} while the vaults are locked; a client that is
+     * not kept warm is then shut down in the background.
+     */
+    public static void release(PearPassVaultClient client) {
+        if (client == null) {
+            return;
+        }
+
+        boolean shared;
+        boolean lastReference = false;
+        synchronized (VaultClientPool.class) {
+            shared = client == sharedClient;
+            if (shared) {
+                refCount = Math.max(0, refCount - 1);
+                lastReference = refCount == 0;
+            }
+        }
+
+        if (!shared) {
+            closeInBackground(client);
+            return;
+        }
+        if (!lastReference) {
+            return;
+        }
+
+        boolean locked = false;
+        try {
+            client.lockVaults().get(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            locked = true;
+        } catch (Exception e) {
+            SecureLog.w(TAG, "Failed to lock vaults on release: " + e.getMessage());
+        }
+
+        synchronized (VaultClientPool.class) {
+            if (client != sharedClient || refCount != 0) {
+                return;
+            }
+            if (locked && client.isAlive()) {
+                handler.postDelayed(idleShutdown, IDLE_TIMEOUT_MS);
+                return;
+            }
+            // Never keep a worklet whose vaults may still be open
+            sharedClient = null;
+        }
+        closeInBackground(client);
+    }
+
+    /**
+     * Shut down the shared worklet if no one holds it. Blocks for up to
+     * {@link #CLOSE_TIMEOUT_MS}; called on the pool's background thread.
+     */
+    private static void closeIdleClient() {
+        PearPassVaultClient client;
+        synchronized (VaultClientPool.class) {
+            if (sharedClient == null || refCount > 0) {
+                return;
+            }
+            handler.removeCallbacks(idleShutdown);
+            client = sharedClient;
+            sharedClient = null;
+        }
+        SecureLog.d(TAG, "Shutting down idle vault client");
+        closeNow(client);
+    }
+
+    private static void closeInBackground(PearPassVaultClient client) {
+        handler.post(() -> closeNow(client));
+    }
+
+    private static void closeNow(PearPassVaultClient client) {
+        try {
+            // Wait to ensure the database is released before a new worklet opens it
+            client.closeAllInstances().get(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.TimeoutException e) {
+            SecureLog.w(TAG, "Close timed out after " + CLOSE_TIMEOUT_MS + "ms, continuing anyway");
+        } catch (Exception e) {
+            SecureLog.w(TAG, "Error closing vault client: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.pears.pass.autofill.data;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A vault opened with {@link PearPassVaultClient#openVault(String, byte[])}.
+ *
+ * The worklet keeps a single active vault, so every operation on a handle is
+ * queued behind the client's other vault operations and first makes this
+ * vault the active one. Switching back to a vault that was unlocked this
+ * session reuses its cached key and costs a single ACTIVE_VAULT_INIT.
+ */
+public class VaultHandle {
+
+    private final PearPassVaultClient client;
+    private final String vaultId;
+
+    VaultHandle(PearPassVaultClient client, String vaultId) {
+        this.client = client;
+        this.vaultId = vaultId;
+    }
+
+    public String getVaultId() {
+        return vaultId;
+    }
+
+    /**
+     * List this vault's records matching {@code query}.
+     */
+    public CompletableFuture<List<VaultRecord>> list(RecordQuery query) {
+        return client.runInVault(vaultId, () -> client.activeVaultRecords(query));
+    }
+
+    /**
+     * Hand this vault's records to {@code listener} in chunks, as
+     * {@link PearPassVaultClient#activeVaultListStream} does for the active vault.
+     */
+    public CompletableFuture<Integer> listStream(String filterKey, int chunkSize,
+                                                 PearPassVaultClient.RecordChunkListener listener) {
+        return client.runInVault(vaultId, () -> client.activeVaultListStream(filterKey, chunkSize, listener));
+    }
+
+    /**
+     * Look up one record of this vault by id.
+     *
+     * @return The record, or null if the vault has no record with this id
+     */
+    public CompletableFuture<VaultRecord> get(String recordId) {
+        return list(new RecordQuery().id(recordId))
+                .thenApply(records -> records.isEmpty() ? null : records.get(0));
+    }
+
+    /**
+     * Add or replace a record of this vault.
+     */
+    public CompletableFuture<Void> add(String key, Map<String, Object> data) {
+        return client.runInVault(vaultId, () -> client.activeVaultAdd(key, data));
+    }
+}
@@ -0,0 +1,54 @@
+package com.pears.pass.autofill.data;
+
+import com.pears.pass.autofill.utils.SecureBufferUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of decrypted vault keys for one autofill session.
+ *
+ * Opening a password-protected vault derives a key from the password (a slow
+ * KDF) and then decrypts the vault key. Keeping the decrypted key lets the
+ * user switch back to a vault they already unlocked without either step.
+ *
+ * Keys are held as byte arrays and wiped with {@link SecureBufferUtils} when
+ * replaced, removed, or cleared. {@link PearPassVaultClient} clears the cache
+ * whenever the vaults are locked or the worklet is closed, so keys never
+ * outlive the session that unlocked them.
+ */
+class VaultKeyCache {
+
+    private final Map<String, byte[]> keys = new HashMap<>();
+
+    /**
+     * @param encryptionKey The decrypted key, owned by the cache from now on
+     */
+    synchronized void put(String vaultId, byte[] encryptionKey) {
+        SecureBufferUtils.clearBuffer(keys.put(vaultId, encryptionKey));
+    }
+
+    /**
+     * @return A copy of the cached key, which the caller wipes when done, or null if
+     *         the vault has not been unlocked this session
+     */
+    synchronized byte[] get(String vaultId) {
+        byte[] key = keys.get(vaultId);
+        return key != null ? key.clone() : null;
+    }
+
+    synchronized boolean contains(String vaultId) {
+        return keys.containsKey(vaultId);
+    }
+
+    synchronized void remove(String vaultId) {
+        SecureBufferUtils.clearBuffer(keys.remove(vaultId));
+    }
+
+    synchronized void clear() {
+        for (byte[] key : keys.values()) {
+            SecureBufferUtils.clearBuffer(key);
+        }
+        keys.clear();
+    }
+}
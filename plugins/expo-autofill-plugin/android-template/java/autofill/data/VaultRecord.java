@@ -0,0 +1,202 @@
+package com.pears.pass.autofill.data;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only view of one record from an ACTIVE_VAULT_LIST reply.
+ *
+ * The parsed JSON is kept as is and fields are only converted when they are
+ * read, so scanning thousands of records for a domain or a passkey allocates
+ * nothing for the records that are skipped. Use {@link #toMap()} where the
+ * nested Map form is still needed (e.g. to write a record back).
+ */
+public class VaultRecord {
+
+    private final JSONObject record;
+    private final JSONObject data;
+    private List<String> websites;
+
+    public VaultRecord(JSONObject record) {
+        this.record = record;
+        JSONObject nested = record.optJSONObject("data");
+        this.data = nested != null ? nested : record;
+    }
+
+    /**
+     * Wrap every object of an ACTIVE_VAULT_LIST reply ({@code JSONArray} or
+     * {@code {"data": [...]}}), skipping other values.
+     */
+    public static List<VaultRecord> fromReply(Object reply) {
+        JSONArray array = null;
+        if (reply instanceof JSONArray) {
+            array = (JSONArray) reply;
+        } else if (reply instanceof JSONObject) {
+            array = ((JSONObject) reply).optJSONArray("data");
+        }
+        if (array == null) {
+            return new ArrayList<>();
+        }
+
+        List<VaultRecord> records = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject record = array.optJSONObject(i);
+            if (record != null) {
+                records.add(new VaultRecord(record));
+            }
+        }
+        return records;
+    }
+
+    public String getId() {
+        return string(record, "id");
+    }
+
+    public String getType() {
+        return string(record, "type");
+    }
+
+    public String getVaultId() {
+        return string(record, "vaultId");
+    }
+
+    public String getFolder() {
+        return string(record, "folder");
+    }
+
+    /**
+     * @return The title, falling back to {@code name} (used by credit cards)
+     */
+    public String getTitle() {
+        String title = string(data, "title");
+        return title != null ? title : string(data, "name");
+    }
+
+    public String getUsername() {
+        return string(data, "username");
+    }
+
+    public String getPassword() {
+        return string(data, "password");
+    }
+
+    /**
+     * Read any string field of the record's {@code data} object.
+     */
+    public String getDataString(String field) {
+        return string(data, field);
+    }
+
+    public int getWebsiteCount() {
+        JSONArray array = data.optJSONArray("websites");
+        return array != null ? array.length() : 0;
+    }
+
+    /**
+     * @return The website at {@code index}, or null if it is not a string
+     */
+    public String getWebsite(int index) {
+        JSONArray array = data.optJSONArray("websites");
+        if (array == null) {
+            return null;
+        }
+        Object website = array.opt(index);
+        return website instanceof String ? (String) website : null;
+    }
+
+    /**
+     * @return The string entries of {@code websites}, converted on first call
+     */
+    public List<String> getWebsites() {
+        if (websites == null) {
+            List<String> list = new ArrayList<>();
+            for (int i = 0; i < getWebsiteCount(); i++) {
+                String website = getWebsite(i);
+                if (website != null) list.add(website);
+            }
+            websites = Collections.unmodifiableList(list);
+        }
+        return websites;
+    }
+
+    public boolean hasCredential() {
+        return data.optJSONObject("credential") != null;
+    }
+
+    /**
+     * @return The passkey credential as a Map, or null if the record has none
+     */
+    public Map<String, Object> getCredential() throws JSONException {
+        JSONObject credential = data.optJSONObject("credential");
+        return credential != null ? toMap(credential) : null;
+    }
+
+    /**
+     * Read a string field of the passkey credential without converting it.
+     */
+    public String getCredentialString(String field) {
+        JSONObject credential = data.optJSONObject("credential");
+        return credential != null ? string(credential, field) : null;
+    }
+
+    public long getPasskeyCreatedAt() {
+        Object value = data.opt("passkeyCreatedAt");
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    /**
+     * Convert the whole record into nested Maps and Lists.
+     */
+    public Map<String, Object> toMap() throws JSONException {
+        return toMap(record);
+    }
+
+    /**
+     * Convert a JSON object into nested Maps and Lists, with JSON null as null.
+     */
+    static Map<String, Object> toMap(JSONObject jsonObject) throws JSONException {
+        Map<String, Object> map = new HashMap<>();
+        String[] keys = new String[jsonObject.length()];
+        int i = 0;
+        for (Iterator<String> it = jsonObject.keys(); it.hasNext(); i++) {
+            keys[i] = it.next();
+        }
+
+        for (String key : keys) {
+            map.put(key, toJavaValue(jsonObject.get(key)));
+        }
+        return map;
+    }
+
+    static List<Object> toList(JSONArray jsonArray) throws JSONException {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < jsonArray.length(); i++) {
+            list.add(toJavaValue(jsonArray.get(i)));
+        }
+        return list;
+    }
+
+    private static Object toJavaValue(Object value) throws JSONException {
+        if (value == null || value == JSONObject.NULL) {
+            return null;
+        } else if (value instanceof JSONObject) {
+            return toMap((JSONObject) value);
+        } else if (value instanceof JSONArray) {
+            return toList((JSONArray) value);
+        }
+        return value;
+    }
+
+    private static String string(JSONObject object, String key) {
+        Object value = object.opt(key);
+        return value instanceof String ? (String) value : null;
+    }
+}
@@ -0,0 +1,56 @@
+package com.pears.pass.autofill.data;
+
+/**
+ * Message transport between {@link PearPassVaultClient} and the vault worklet.
+ *
+ * {@link BareHelper} runs the real worklet over Bare Kit IPC. The JVM tests
+ * in plugins/expo-autofill-plugin/jvm provide an in-memory implementation, so
+ * the client's request queue can be exercised without a device.
+ */
+public interface WorkletTransport {
+
+    interface WriteCallback {
+        void onComplete(Throwable error);
+    }
+
+    /**
+     * Receives every reply delivered by the persistent read loop started with {@link #startReading}.
+     */
+    interface MessageListener {
+        /**
+         * A JSON reply.
+         *
+         * @param byteLength Size of the reply as read from the worklet, in UTF-8 bytes
+         */
+        void onMessage(String message, int byteLength);
+        void onError(Throwable error);
+    }
+
+    /**
+     * Start the worklet.
+     *
+     * @return true if it is running
+     */
+    boolean startWorklet();
+
+    /**
+     * @return How long the last {@link #startWorklet} took, or -1 if it has not completed
+     */
+    long getLastStartDurationMs();
+
+    /**
+     * Write a JSON message without waiting for a reply. Replies are delivered to
+     * the listener registered with {@link #startReading}.
+     */
+    void post(String message, WriteCallback callback);
+
+    /**
+     * Deliver every reply to {@code listener} until {@link #shutdown}.
+     */
+    void startReading(MessageListener listener);
+
+
+    void shutdown();
+
+    boolean isRunning();
+}
@@ -0,0 +1,162 @@
+package com.pears.pass.autofill.jobs;
+
+import com.pears.pass.autofill.utils.SecureLog;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stages several jobs and their attachments and writes them to the queue
+ * together.
+ *
+ * Appending jobs one by one re-encrypts and fsyncs the whole job file for each
+ * of them. A batch is written with a single encryption and a single fsync of
+ * the job file, however many jobs it holds. Attachments are saved just before
+ * the jobs; if writing the jobs fails, the attachments saved by this batch are
+ * deleted again, so a failed commit leaves nothing behind.
+ *
+ * Removals staged with {@link #removeJobsForRecord} are applied in the same
+ * write, so replacing a record's pending job costs one rewrite of the queue and
+ * the old job and its replacement are never both or neither in the file.
+ *
+ * Usage:
+ * <pre>
+ *   JobBatch batch = new JobBatch(jobFileManager);
+ *   batch.removeJobsForRecord(recordId);  // replaced by the job below
+ *   JobAttachment attachment = batch.stageAttachment(data, "photo.jpg");
+ *   batch.addJob(job);  // job payload references attachment
+ *   batch.commit(hashedPassword);
+ *   long written = batch.getBytesWritten();
+ * </pre>
+ *
+ * A batch can be committed once. Not thread-safe.
+ */
+public class JobBatch {
+    private static final String TAG = "JobBatch";
+
+    private final JobFileManager jobFileManager;
+    private final List<Job> jobs = new ArrayList<>();
+    private final List<String> removedRecordIds = new ArrayList<>();
+    private final List<StagedAttachment> attachments = new ArrayList<>();
+    private boolean committed = false;
+    private long bytesWritten = 0;
+
+    private static class StagedAttachment {
+        final JobAttachment attachment;
+        final byte[] data;
+
+        StagedAttachment(JobAttachment attachment, byte[] data) {
+            this.attachment = attachment;
+            this.data = data;
+        }
+    }
+
+    public JobBatch(JobFileManager jobFileManager) {
+        this.jobFileManager = jobFileManager;
+    }
+
+    /**
+     * Stage an attachment to be saved on commit.
+     *
+     * @param data     The file content
+     * @param filename The original filename (its extension is kept)
+     * @return The attachment reference to put in a job payload
+     */
+    public JobAttachment stageAttachment(byte[] data, String filename) {
+        checkNotCommitted();
+        String attachmentId = UUID.randomUUID().toString();
+        JobAttachment attachment = new JobAttachment(
+                attachmentId, filename, jobFileManager.attachmentFileName(attachmentId, filename));
+        attachments.add(new StagedAttachment(attachment, data));
+        return attachment;
+    }
+
+    /**
+     * Stage a job to be appended on commit.
+     */
+    public JobBatch addJob(Job job) {
+        checkNotCommitted();
+        jobs.add(job);
+        return this;
+    }
+
+    /**
+     * Stage the removal of the pending jobs for {@code recordId}, as
+     * {@link JobFileManager#removeJobsForRecord} does, applied on commit before
+     * the staged jobs are appended.
+     */
+    public JobBatch removeJobsForRecord(String recordId) {
+        checkNotCommitted();
+        removedRecordIds.add(recordId);
+        return this;
+    }
+
+    public int getJobCount() {
+        return jobs.size();
+    }
+
+    public int getAttachmentCount() {
+        return attachments.size();
+    }
+
+    /**
+     * Save the staged attachments, then apply the staged removals and append
+     * the staged jobs in one write.
+     *
+     * @param hashedPassword 32-byte encryption key
+     * @throws Exception if saving an attachment or writing the jobs fails;
+     *                   attachments saved by this batch are deleted again
+     */
+    public void commit(byte[] hashedPassword) throws Exception {
+        checkNotCommitted();
+        committed = true;
+
+        List<JobAttachment> saved = new ArrayList<>(attachments.size());
+        long written = 0;
+        try {
+            for (StagedAttachment staged : attachments) {
+                jobFileManager.saveAttachment(
+                        staged.data, staged.attachment.getId(), staged.attachment.getName());
+                saved.add(staged.attachment);
+                written += staged.data.length;
+            }
+            written += jobFileManager.applyBatch(removedRecordIds, jobs, hashedPassword);
+        } catch (Exception e) {
+            for (JobAttachment attachment : saved) {
+                deleteAttachment(attachment);
+            }
+            throw e;
+        }
+
+        bytesWritten = written;
+        SecureLog.d(TAG, "Committed " + jobs.size() + " job(s), " + removedRecordIds.size()
+                + " record removal(s) and " + attachments.size() + " attachment(s), " + bytesWritten + " bytes");
+    }
+
+    /**
+     * @return Bytes written by {@link #commit}: attachment contents plus what
+     *         was written to the job file (0 before commit)
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private void deleteAttachment(JobAttachment attachment) {
+        try {
+            File file = jobFileManager.getAttachmentFile(attachment);
+            if (!file.delete()) {
+                SecureLog.w(TAG, "Failed to delete attachment " + attachment.getId());
+            }
+        } catch (Exception e) {
+            SecureLog.w(TAG, "Failed to delete attachment " + attachment.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private void checkNotCommitted() {
+        if (committed) {
+            throw new IllegalStateException("Job batch already committed");
+        }
+    }
+}
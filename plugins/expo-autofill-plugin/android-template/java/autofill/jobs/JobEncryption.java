@@ -2,7 +2,14 @@ package com.pears.pass.autofill.jobs;
 
 import com.goterl.lazysodium.SodiumAndroid;
 import com.goterl.lazysodium.interfaces.SecretBox;
+import com.sun.jna.Library;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 
 /**
@@ -13,7 +20,12 @@ import java.util.Arrays;
  * The encryption key is the hashedPassword (32 bytes) from the vault's masterEncryption metadata,
  * the same key used for vault encryption, already derived via Argon2id.
  *
- * Uses lazysodium-android for native bindings to libsodium.
+ * Uses lazysodium-android for native bindings to libsodium. The offset/length
+ * overloads bind the same library through JNA and work in place in one native
+ * buffer: the caller's range is copied in once and the result copied out once,
+ * instead of splitting and joining nonce and ciphertext through Java arrays.
+ * (Slices of one heap array cannot be passed as separate arguments: JNA
+ * marshals each of them on its own and the copies overwrite each other.)
  *
  * NOTE: The lazysodium-android dependency must be added to the app's build.gradle:
  *   implementation "com.goterl:lazysodium-android:5.1.0@aar"
@@ -33,8 +45,52 @@ public class JobEncryption {
 
     private static final SodiumAndroid sodium;
 
+    /** The libsodium calls used by the offset/length overloads. */
+    private interface BufferSodium extends Library {
+        int crypto_secretbox_easy(Pointer c, Pointer m, long mlen, Pointer n, byte[] k);
+
+        int crypto_secretbox_open_easy(Pointer m, Pointer c, long clen, Pointer n, byte[] k);
+
+        void randombytes_buf(Pointer buf, long size);
+
+        int crypto_stream_xsalsa20(Pointer c, long clen, byte[] n, byte[] k);
+
+        int crypto_stream_xsalsa20_xor_ic(Pointer c, Pointer m, long mlen, byte[] n, long ic, byte[] k);
+
+        long crypto_onetimeauth_statebytes();
+
+        int crypto_onetimeauth_init(Pointer state, Pointer key);
+
+        int crypto_onetimeauth_update(Pointer state, Pointer in, long inlen);
+
+        int crypto_onetimeauth_final(Pointer state, Pointer out);
+
+        int crypto_verify_16(Pointer x, byte[] y);
+    }
+
+    /**
+     * Receives the plaintext of {@link #decrypt(FileChannel, long, long, byte[], PlaintextSink)}
+     * in order. The buffer is wiped once the call returns.
+     */
+    public interface PlaintextSink {
+        void write(byte[] buffer, int offset, int length) throws Exception;
+    }
+
+    /** Ciphertext bytes read and decrypted at a time by the channel overload; a multiple of 64. */
+    static final int STREAM_CHUNK_BYTES = 64 * 1024;
+
+    /** Size of a Salsa20 block; the keystream counter of crypto_stream_xsalsa20_xor_ic counts these. */
+    private static final int SALSA20_BLOCK_BYTES = 64;
+
+    /** crypto_secretbox takes the Poly1305 key from the first bytes of keystream block 0. */
+    private static final int POLY1305_KEY_BYTES = 32;
+
+    private static final BufferSodium bufferSodium;
+
     static {
         sodium = new SodiumAndroid();
+        // SodiumAndroid has already loaded the bundled libsodium
+        bufferSodium = Native.load("sodium", BufferSodium.class);
     }
 
     private JobEncryption() {
@@ -53,31 +109,58 @@ public class JobEncryption {
      * @throws Exception if encryption fails or key length is invalid
      */
     public static byte[] encrypt(byte[] data, byte[] key) throws Exception {
-        if (key == null || key.length != KEY_BYTES) {
-            throw new IllegalArgumentException(
-                    "Key must be " + KEY_BYTES + " bytes, got " + (key != null ? key.length : 0));
-        }
         if (data == null || data.length == 0) {
             throw new IllegalArgumentException("Data must not be null or empty");
         }
+        byte[] output = new byte[sealedLength(data.length)];
+        encrypt(data, 0, data.length, key, output, 0);
+        return output;
+    }
 
-        byte[] nonce = generateNonce();
-        byte[] ciphertext = new byte[MAC_BYTES + data.length];
-
-        // Native signature: crypto_secretbox_easy(byte[] c, byte[] m, long mlen, byte[] n, byte[] k)
-        int result = sodium.crypto_secretbox_easy(
-                ciphertext, data, (long) data.length, nonce, key);
-
-        if (result != 0) {
-            throw new Exception("crypto_secretbox_easy failed with code: " + result);
+    /**
+     * Encrypt {@code length} bytes of {@code data} starting at {@code offset} into
+     * {@code out}, writing a fresh nonce followed by the ciphertext at
+     * {@code outOffset}. No intermediate Java arrays are allocated.
+     *
+     * @param out       Destination; needs {@link #sealedLength(int)} bytes from {@code outOffset}
+     * @param outOffset Where the nonce starts in {@code out}
+     * @return Number of bytes written ({@link #sealedLength(int)})
+     * @throws Exception if encryption fails, a range is out of bounds, or the key is invalid
+     */
+    public static int encrypt(byte[] data, int offset, int length, byte[] key,
+                              byte[] out, int outOffset) throws Exception {
+        checkKey(key);
+        if (data == null || length <= 0) {
+            throw new IllegalArgumentException("Data must not be null or empty");
         }
+        int sealedLength = sealedLength(length);
+        checkRange(data, offset, length);
+        checkRange(out, outOffset, sealedLength);
 
-        // Return nonce + ciphertext
-        byte[] output = new byte[NONCE_BYTES + ciphertext.length];
-        System.arraycopy(nonce, 0, output, 0, NONCE_BYTES);
-        System.arraycopy(ciphertext, 0, output, NONCE_BYTES, ciphertext.length);
+        try (Memory buffer = new Memory(sealedLength)) {
+            // Laid out like the output; the plaintext sits where the ciphertext
+            // ends up after the MAC, and libsodium encrypts it in place
+            buffer.write(NONCE_BYTES + MAC_BYTES, data, offset, length);
+            try {
+                bufferSodium.randombytes_buf(buffer, NONCE_BYTES);
 
-        return output;
+                // crypto_secretbox_easy(c, m, mlen, n, k)
+                int result = bufferSodium.crypto_secretbox_easy(
+                        buffer.share(NONCE_BYTES),
+                        buffer.share(NONCE_BYTES + MAC_BYTES),
+                        (long) length,
+                        buffer,
+                        key);
+
+                if (result != 0) {
+                    throw new Exception("crypto_secretbox_easy failed with code: " + result);
+                }
+                buffer.read(0, out, outOffset, sealedLength);
+            } finally {
+                buffer.clear();
+            }
+        }
+        return sealedLength;
     }
 
     /**
@@ -91,34 +174,191 @@ public class JobEncryption {
      * @throws Exception if decryption fails, data is too short, or key is invalid
      */
     public static byte[] decrypt(byte[] nonceAndCiphertext, byte[] key) throws Exception {
-        if (key == null || key.length != KEY_BYTES) {
+        if (nonceAndCiphertext == null) {
             throw new IllegalArgumentException(
-                    "Key must be " + KEY_BYTES + " bytes, got " + (key != null ? key.length : 0));
+                    "Data too short: must be at least " + (NONCE_BYTES + MAC_BYTES + 1) + " bytes");
         }
-        if (nonceAndCiphertext == null || nonceAndCiphertext.length <= NONCE_BYTES + MAC_BYTES) {
+        byte[] plaintext = new byte[Math.max(openedLength(nonceAndCiphertext.length), 0)];
+        decrypt(nonceAndCiphertext, 0, nonceAndCiphertext.length, key, plaintext, 0);
+        return plaintext;
+    }
+
+    /**
+     * Decrypt {@code length} bytes of nonce + ciphertext starting at {@code offset}
+     * into {@code out} at {@code outOffset}, without splitting the input.
+     *
+     * @param out Destination; needs {@link #openedLength(int)} bytes from {@code outOffset}
+     * @return Number of plaintext bytes written
+     * @throws Exception if decryption fails, data is too short, a range is out of
+     *                   bounds, or the key is invalid
+     */
+    public static int decrypt(byte[] in, int offset, int length, byte[] key,
+                              byte[] out, int outOffset) throws Exception {
+        checkKey(key);
+        if (in == null || length <= NONCE_BYTES + MAC_BYTES) {
             throw new IllegalArgumentException(
                     "Data too short: must be at least " + (NONCE_BYTES + MAC_BYTES + 1) + " bytes");
         }
+        int plaintextLength = openedLength(length);
+        checkRange(in, offset, length);
+        checkRange(out, outOffset, plaintextLength);
 
-        // Split nonce and ciphertext
+        int ciphertextLength = length - NONCE_BYTES;
+
+        try (Memory buffer = new Memory(length)) {
+            buffer.write(0, in, offset, length);
+            try {
+                // crypto_secretbox_open_easy(m, c, clen, n, k), decrypting in place
+                int result = bufferSodium.crypto_secretbox_open_easy(
+                        buffer.share(NONCE_BYTES),
+                        buffer.share(NONCE_BYTES),
+                        (long) ciphertextLength,
+                        buffer,
+                        key);
+
+                if (result != 0) {
+                    throw new Exception("crypto_secretbox_open_easy failed — wrong key or corrupted data");
+                }
+                buffer.read(NONCE_BYTES, out, outOffset, plaintextLength);
+            } finally {
+                buffer.clear();
+            }
+        }
+        return plaintextLength;
+    }
+
+    /**
+     * Decrypt {@code length} bytes of nonce + ciphertext read from {@code channel}
+     * at {@code position}, handing the plaintext to {@code sink} in chunks of
+     * {@link #STREAM_CHUNK_BYTES}. Produces the same plaintext as
+     * crypto_secretbox_open_easy, with memory independent of {@code length}.
+     *
+     * The ciphertext is read twice: once to check the Poly1305 tag, and only if
+     * it matches, again to decrypt it, so nothing unauthenticated reaches the
+     * sink. Both passes use positional reads, so the channel must refer to a
+     * file that is not modified in place while this runs.
+     *
+     * @throws Exception if decryption fails, the data is too short, the key is
+     *                   invalid, or the sink throws
+     */
+    public static void decrypt(FileChannel channel, long position, long length, byte[] key,
+                               PlaintextSink sink) throws Exception {
+        checkKey(key);
+        if (length <= NONCE_BYTES + MAC_BYTES) {
+            throw new IllegalArgumentException(
+                    "Data too short: must be at least " + (NONCE_BYTES + MAC_BYTES + 1) + " bytes");
+        }
         byte[] nonce = new byte[NONCE_BYTES];
-        System.arraycopy(nonceAndCiphertext, 0, nonce, 0, NONCE_BYTES);
+        byte[] mac = new byte[MAC_BYTES];
+        readAt(channel, position, nonce, NONCE_BYTES);
+        readAt(channel, position + NONCE_BYTES, mac, MAC_BYTES);
+        long ciphertextStart = position + NONCE_BYTES + MAC_BYTES;
+        long ciphertextLength = length - NONCE_BYTES - MAC_BYTES;
 
-        int ciphertextLength = nonceAndCiphertext.length - NONCE_BYTES;
-        byte[] ciphertext = new byte[ciphertextLength];
-        System.arraycopy(nonceAndCiphertext, NONCE_BYTES, ciphertext, 0, ciphertextLength);
+        // The keystream is laid out as [Poly1305 key][message keystream...]. Each
+        // chunk covers whole keystream blocks; the first one starts with the 32
+        // bytes of the Poly1305 key, which are zero-filled and skipped.
+        byte[] chunk = new byte[STREAM_CHUNK_BYTES];
+        try (Memory buffer = new Memory(STREAM_CHUNK_BYTES)) {
+            try {
+                verifyTag(channel, ciphertextStart, ciphertextLength, nonce, mac, key, chunk, buffer);
 
-        byte[] plaintext = new byte[ciphertextLength - MAC_BYTES];
+                long keystreamOffset = 0;
+                long read = 0;
+                while (read < ciphertextLength) {
+                    int skip = keystreamOffset == 0 ? POLY1305_KEY_BYTES : 0;
+                    int n = (int) Math.min(STREAM_CHUNK_BYTES - skip, ciphertextLength - read);
+                    readAt(channel, ciphertextStart + read, chunk, n);
+                    buffer.clear(skip);
+                    buffer.write(skip, chunk, 0, n);
 
-        // Native signature: crypto_secretbox_open_easy(byte[] m, byte[] c, long clen, byte[] n, byte[] k)
-        int result = sodium.crypto_secretbox_open_easy(
-                plaintext, ciphertext, (long) ciphertext.length, nonce, key);
+                    int result = bufferSodium.crypto_stream_xsalsa20_xor_ic(buffer, buffer,
+                            (long) skip + n, nonce, keystreamOffset / SALSA20_BLOCK_BYTES, key);
+                    if (result != 0) {
+                        throw new Exception("crypto_stream_xsalsa20_xor_ic failed with code: " + result);
+                    }
+                    buffer.read(skip, chunk, 0, n);
+                    sink.write(chunk, 0, n);
 
-        if (result != 0) {
-            throw new Exception("crypto_secretbox_open_easy failed — wrong key or corrupted data");
+                    read += n;
+                    keystreamOffset += skip + n;
+                }
+            } finally {
+                buffer.clear();
+                secureZero(chunk);
+            }
         }
+    }
 
-        return plaintext;
+    /**
+     * First pass of the channel overload of decrypt: compute the Poly1305 tag of
+     * the ciphertext incrementally and compare it with {@code mac}.
+     */
+    private static void verifyTag(FileChannel channel, long start, long length, byte[] nonce, byte[] mac,
+                                  byte[] key, byte[] chunk, Memory buffer) throws Exception {
+        int stateBytes = (int) bufferSodium.crypto_onetimeauth_statebytes();
+        // crypto_onetimeauth_state must be 16-byte aligned
+        try (Memory state = new Memory(stateBytes + 16); Memory polyKey = new Memory(POLY1305_KEY_BYTES)) {
+            Pointer alignedState = state.align(16);
+            try {
+                if (bufferSodium.crypto_stream_xsalsa20(polyKey, POLY1305_KEY_BYTES, nonce, key) != 0
+                        || bufferSodium.crypto_onetimeauth_init(alignedState, polyKey) != 0) {
+                    throw new Exception("Failed to initialize Poly1305");
+                }
+                long read = 0;
+                while (read < length) {
+                    int n = (int) Math.min(chunk.length, length - read);
+                    readAt(channel, start + read, chunk, n);
+                    buffer.write(0, chunk, 0, n);
+                    bufferSodium.crypto_onetimeauth_update(alignedState, buffer, n);
+                    read += n;
+                }
+                bufferSodium.crypto_onetimeauth_final(alignedState, polyKey);
+                if (bufferSodium.crypto_verify_16(polyKey, mac) != 0) {
+                    throw new Exception("Poly1305 tag mismatch — wrong key or corrupted data");
+                }
+            } finally {
+                state.clear();
+                polyKey.clear();
+            }
+        }
+    }
+
+    private static void readAt(FileChannel channel, long position, byte[] into, int length) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(into, 0, length);
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new IOException("Unexpected end of job file");
+            }
+        }
+    }
+
+    /**
+     * @return Size of nonce + ciphertext for a plaintext of {@code plaintextLength} bytes
+     */
+    public static int sealedLength(int plaintextLength) {
+        return NONCE_BYTES + MAC_BYTES + plaintextLength;
+    }
+
+    /**
+     * @return Size of the plaintext sealed in {@code sealedLength} bytes of nonce + ciphertext
+     */
+    public static int openedLength(int sealedLength) {
+        return sealedLength - NONCE_BYTES - MAC_BYTES;
+    }
+
+    private static void checkKey(byte[] key) {
+        if (key == null || key.length != KEY_BYTES) {
+            throw new IllegalArgumentException(
+                    "Key must be " + KEY_BYTES + " bytes, got " + (key != null ? key.length : 0));
+        }
+    }
+
+    private static void checkRange(byte[] array, int offset, int length) {
+        if (array == null || offset < 0 || length < 0 || offset > array.length - length) {
+            throw new IllegalArgumentException("Range " + offset + "+" + length + " outside buffer of "
+                    + (array != null ? array.length : 0) + " bytes");
+        }
     }
 
     /**
@@ -6,16 +6,23 @@ import com.pears.pass.autofill.utils.SecureLog;
 
 import org.json.JSONArray;
 import org.json.JSONException;
+import org.json.JSONObject;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileLock;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Manages reading, writing, and appending encrypted job files.
@@ -26,17 +33,34 @@ import java.util.List;
  *     Magic: "PPJQ" (4 bytes ASCII)
  *     Version: uint16 LE (2 bytes) — currently 1
  *     Job Count: uint16 LE (2 bytes)
- *     Reserved: (8 bytes of zeros)
+ *     Generation: uint32 LE (4 bytes) — incremented by every full write
+ *     Reserved: (4 bytes of zeros)
  *   [Nonce 24 bytes]
  *   [Encrypted payload (variable)]
  *     The encrypted output of crypto_secretbox which includes a 16-byte auth tag
  *     prepended to the ciphertext. When decrypted, yields a JSON array of jobs.
  * </pre>
  *
+ * The payload is a single crypto_secretbox, shared with the main app's worklet.
+ * {@link #readJobs} still reads it with memory bounded by the largest job: the
+ * tag is checked in a first streaming pass, then the payload is decrypted in
+ * chunks and the array parsed one job at a time (see {@link JobArrayParser}).
+ *
  * The base directory is {@code context.getFilesDir()/pearpass_jobs/}, which is a
  * sibling to {@code pearpass/} (the vault data directory).
  *
  * All writes use atomic operations: write to temp file, fsync, rename.
+ *
+ * Writers in this app (the autofill service and the credential provider
+ * activities, possibly in different processes) serialize on an exclusive
+ * {@link FileLock} on {@code jobs.lock}. Readers take no lock, since a rename
+ * never exposes a partial file; they take the file's length from the stream
+ * they opened, so a rename between opening and reading cannot mix two files.
+ * The main app writes through its worklet without that lock, so read-modify-write
+ * cycles are also optimistic: the stamp of the file that was read is checked
+ * again, under the lock, immediately before the rename, and on a mismatch the
+ * cycle is retried on fresh data. That narrows the window for a lock-free writer
+ * to the check and the rename themselves; it cannot close it.
  */
 public class JobFileManager {
     private static final String TAG = "JobFileManager";
@@ -56,8 +80,126 @@ public class JobFileManager {
     /** Attachments subdirectory name. */
     private static final String ATTACHMENTS_DIR_NAME = "attachments";
 
+    /** Lock file serializing writers across processes. */
+    private static final String LOCK_FILE_NAME = "jobs.lock";
+
+    /** Read-modify-write attempts before giving up on a queue that keeps changing. */
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    /** FileLock is held per process, so threads of one process serialize here first. */
+    private static final ReentrantLock processLock = new ReentrantLock();
+
     private final File baseDirectory;
 
+    /**
+     * Thrown when the job file changed between reading and replacing it.
+     */
+    private static class JobQueueConflictException extends IOException {
+        JobQueueConflictException() {
+            super("Job file changed during write");
+        }
+    }
+
+    /**
+     * Parses the decrypted JSON job array as it streams in, one job at a time.
+     * Element boundaries are found by tracking nesting depth outside strings,
+     * so only the bytes of the current job are buffered. Multi-byte UTF-8
+     * sequences never contain ASCII bytes and pass through as string content.
+     */
+    private static class JobArrayParser implements JobEncryption.PlaintextSink {
+        private final List<Job> jobs = new ArrayList<>();
+        private byte[] element = new byte[1024];
+        private int elementLength = 0;
+        private boolean started = false;
+        private boolean finished = false;
+        private int depth = 0;
+        private boolean inString = false;
+        private boolean escaped = false;
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws JSONException {
+            for (int i = offset; i < offset + length; i++) {
+                byte b = buffer[i];
+
+                if (depth == 0) {
+                    // Between elements: only the brackets, commas, and whitespace
+                    if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                        continue;
+                    }
+                    if (!started && b == '[') {
+                        started = true;
+                    } else if (started && !finished && b == ',') {
+                        continue;
+                    } else if (started && !finished && b == ']') {
+                        finished = true;
+                    } else if (started && !finished && b == '{') {
+                        depth = 1;
+                        append(b);
+                    } else {
+                        throw new JSONException("Unexpected character '" + (char) (b & 0xFF) + "' in job array");
+                    }
+                    continue;
+                }
+
+                append(b);
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                } else if (b == '"') {
+                    inString = true;
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    String json = new String(element, 0, elementLength, StandardCharsets.UTF_8);
+                    Arrays.fill(element, 0, elementLength, (byte) 0);
+                    elementLength = 0;
+                    jobs.add(Job.fromJSON(new JSONObject(json)));
+                }
+            }
+        }
+
+        private void append(byte b) {
+            if (elementLength == element.length) {
+                byte[] grown = new byte[element.length * 2];
+                System.arraycopy(element, 0, grown, 0, elementLength);
+                JobEncryption.secureZero(element);
+                element = grown;
+            }
+            element[elementLength++] = b;
+        }
+
+        List<Job> finish() throws JSONException {
+            if (!finished) {
+                throw new JSONException("Job array is truncated");
+            }
+            return jobs;
+        }
+
+        void wipe() {
+            JobEncryption.secureZero(element);
+        }
+    }
+
+    /**
+     * A change to the job list, applied under the write lock.
+     */
+    private interface JobUpdate {
+        /**
+         * @param jobs The current jobs, modified in place
+         * @return true if the list changed and must be written back
+         */
+        boolean apply(List<Job> jobs) throws Exception;
+    }
+
+    private interface LockedWrite<T> {
+        T run() throws Exception;
+    }
+
     /**
      * Create a JobFileManager with the standard base directory.
      *
@@ -96,53 +238,55 @@ public class JobFileManager {
     /**
      * Read and decrypt the job file, returning the list of jobs.
      *
+     * Neither the ciphertext nor the plaintext is held whole: memory use is
+     * bounded by the largest job plus one decryption chunk.
+     *
      * @param hashedPassword 32-byte encryption key
      * @return List of Job objects; empty list if file does not exist
      * @throws Exception if the file is corrupted, the header is invalid, or decryption fails
      */
     public List<Job> readJobs(byte[] hashedPassword) throws Exception {
         File jobFile = new File(baseDirectory, JOB_FILE_NAME);
-        if (!jobFile.exists() || jobFile.length() == 0) {
+        FileInputStream stream;
+        try {
+            stream = new FileInputStream(jobFile);
+        } catch (FileNotFoundException e) {
             return new ArrayList<>();
         }
 
-        // Read entire file
-        byte[] fileData = readFileBytes(jobFile);
-
-        // Validate minimum size: header (16) + nonce (24) + mac (16) + at least 1 byte payload
-        if (fileData.length < HEADER_SIZE + JobEncryption.NONCE_BYTES + JobEncryption.MAC_BYTES + 1) {
-            throw new IOException("Job file too small: " + fileData.length + " bytes");
-        }
-
-        // Parse and validate header
-        validateHeader(fileData);
-
-        // Extract nonce + encrypted payload (everything after the header)
-        int encryptedLength = fileData.length - HEADER_SIZE;
-        byte[] nonceAndCiphertext = new byte[encryptedLength];
-        System.arraycopy(fileData, HEADER_SIZE, nonceAndCiphertext, 0, encryptedLength);
+        try (FileInputStream fis = stream) {
+            // The length of the file that was opened, even if it has been replaced since
+            long fileLength = fis.getChannel().size();
+            if (fileLength == 0) {
+                return new ArrayList<>();
+            }
 
-        // Decrypt
-        byte[] plaintext;
-        try {
-            plaintext = JobEncryption.decrypt(nonceAndCiphertext, hashedPassword);
-        } catch (Exception e) {
-            throw new Exception("Failed to decrypt job file: " + e.getMessage(), e);
-        }
+            // Parse and validate header
+            byte[] header = new byte[HEADER_SIZE];
+            if (readFully(fis, header) < HEADER_SIZE) {
+                throw new IOException("File too small for header");
+            }
+            validateHeader(header);
 
-        // Parse JSON array of jobs
-        String jsonString = new String(plaintext, StandardCharsets.UTF_8);
-        JobEncryption.secureZero(plaintext);
+            // Validate minimum size: header (16) + nonce (24) + mac (16) + at least 1 byte payload
+            if (fileLength < HEADER_SIZE + JobEncryption.NONCE_BYTES + JobEncryption.MAC_BYTES + 1) {
+                throw new IOException("Job file too small: " + fileLength + " bytes");
+            }
 
-        try {
-            JSONArray jobsArray = new JSONArray(jsonString);
-            List<Job> jobs = new ArrayList<>(jobsArray.length());
-            for (int i = 0; i < jobsArray.length(); i++) {
-                jobs.add(Job.fromJSON(jobsArray.getJSONObject(i)));
+            // Decrypt nonce + encrypted payload (everything after the header)
+            // straight from the opened file; a writer only ever renames over it
+            JobArrayParser parser = new JobArrayParser();
+            try {
+                JobEncryption.decrypt(fis.getChannel(), HEADER_SIZE, fileLength - HEADER_SIZE,
+                        hashedPassword, parser);
+                return parser.finish();
+            } catch (JSONException e) {
+                throw new Exception("Failed to parse job file JSON: " + e.getMessage(), e);
+            } catch (Exception e) {
+                throw new Exception("Failed to decrypt job file: " + e.getMessage(), e);
+            } finally {
+                parser.wipe();
             }
-            return jobs;
-        } catch (JSONException e) {
-            throw new Exception("Failed to parse job file JSON: " + e.getMessage(), e);
         }
     }
 
@@ -155,12 +299,21 @@ public class JobFileManager {
      * @throws Exception if serialization, encryption, or I/O fails
      */
     public void writeJobs(List<Job> jobs, byte[] hashedPassword) throws Exception {
-        if (!baseDirectory.exists()) {
-            if (!baseDirectory.mkdirs()) {
-                throw new IOException("Failed to create job directory: " + baseDirectory.getAbsolutePath());
-            }
-        }
+        withWriteLock(() -> {
+            commitJobs(jobs, hashedPassword, null);
+            return null;
+        });
+    }
 
+    /**
+     * Write the jobs to the job file, unless the job file no longer matches
+     * {@code expectedStamp}.
+     *
+     * @param expectedStamp Stamp of the file the jobs were read from, or null to overwrite
+     * @return Number of bytes written
+     * @throws JobQueueConflictException if the job file changed in the meantime
+     */
+    private long commitJobs(List<Job> jobs, byte[] hashedPassword, String expectedStamp) throws Exception {
         // Serialize jobs to JSON
         JSONArray jobsArray = new JSONArray();
         for (Job job : jobs) {
@@ -168,18 +321,13 @@ public class JobFileManager {
         }
         byte[] jsonBytes = jobsArray.toString().getBytes(StandardCharsets.UTF_8);
 
-        // Encrypt (returns nonce + ciphertext)
-        byte[] encrypted = JobEncryption.encrypt(jsonBytes, hashedPassword);
+        // Header, then nonce + ciphertext encrypted straight into the same buffer
+        byte[] fileData = new byte[HEADER_SIZE + JobEncryption.sealedLength(jsonBytes.length)];
+        byte[] header = buildHeader(jobs.size(), readGeneration() + 1);
+        System.arraycopy(header, 0, fileData, 0, HEADER_SIZE);
+        JobEncryption.encrypt(jsonBytes, 0, jsonBytes.length, hashedPassword, fileData, HEADER_SIZE);
         JobEncryption.secureZero(jsonBytes);
 
-        // Build header
-        byte[] header = buildHeader(jobs.size());
-
-        // Combine header + encrypted data (which already contains nonce + ciphertext)
-        byte[] fileData = new byte[header.length + encrypted.length];
-        System.arraycopy(header, 0, fileData, 0, header.length);
-        System.arraycopy(encrypted, 0, fileData, header.length, encrypted.length);
-
         // Atomic write: temp file -> fsync -> rename
         File jobFile = new File(baseDirectory, JOB_FILE_NAME);
         File tempFile = new File(baseDirectory, JOB_FILE_NAME + ".tmp");
@@ -189,18 +337,11 @@ public class JobFileManager {
             fos.getFD().sync();
         }
 
-        if (!tempFile.renameTo(jobFile)) {
-            // Fallback: delete target and retry
-            if (jobFile.exists()) {
-                jobFile.delete();
-            }
-            if (!tempFile.renameTo(jobFile)) {
-                tempFile.delete();
-                throw new IOException("Failed to atomically rename temp file to " + jobFile.getAbsolutePath());
-            }
-        }
+        replaceJobFile(tempFile, expectedStamp);
 
         SecureLog.d(TAG, "Wrote " + jobs.size() + " jobs to " + jobFile.getAbsolutePath());
+        writeIndex(JobIndex.fromJobs(jobs, jobFileStamp()), hashedPassword);
+        return fileData.length;
     }
 
     /**
@@ -212,12 +353,26 @@ public class JobFileManager {
      * @throws Exception if reading, appending, or writing fails
      */
     public void appendJob(Job job, byte[] hashedPassword) throws Exception {
-        List<Job> jobs = readJobs(hashedPassword);
-        jobs.add(job);
-        writeJobs(jobs, hashedPassword);
+        appendJobs(Collections.singletonList(job), hashedPassword);
         SecureLog.d(TAG, "Appended job " + job.getId() + " (type: " + job.getType().getValue() + ")");
     }
 
+    /**
+     * Append several jobs with a single write: one encryption and one fsync of
+     * the job file, however many jobs there are. Used by {@link JobBatch}.
+     *
+     * @param newJobs        The jobs to append, in order
+     * @param hashedPassword 32-byte encryption key
+     * @return Number of bytes written to the job file
+     * @throws Exception if reading, appending, or writing fails
+     */
+    public long appendJobs(List<Job> newJobs, byte[] hashedPassword) throws Exception {
+        if (newJobs.isEmpty()) {
+            return 0;
+        }
+        return updateJobs(hashedPassword, jobs -> jobs.addAll(newJobs));
+    }
+
     /**
      * Save an attachment file to the attachments/ subdirectory.
      * Uses atomic write (temp file + fsync + rename).
@@ -231,8 +386,7 @@ public class JobFileManager {
      */
     public String saveAttachment(byte[] data, String attachmentId, String originalFilename)
             throws IOException {
-        String ext = getFileExtension(originalFilename);
-        String filename = ext.isEmpty() ? attachmentId : attachmentId + "." + ext;
+        String filename = attachmentFileName(attachmentId, originalFilename);
 
         File attachmentsDir = new File(baseDirectory, ATTACHMENTS_DIR_NAME);
         if (!attachmentsDir.exists()) {
@@ -264,6 +418,36 @@ public class JobFileManager {
         return filename;
     }
 
+    /**
+     * The relative path {@link #saveAttachment} stores an attachment under.
+     */
+    String attachmentFileName(String attachmentId, String originalFilename) {
+        String ext = getFileExtension(originalFilename);
+        return ext.isEmpty() ? attachmentId : attachmentId + "." + ext;
+    }
+
+    /**
+     * Resolve a saved attachment to its file in the attachments/ subdirectory.
+     *
+     * @param attachment The attachment reference stored in the job
+     * @return The attachment file
+     * @throws IOException if the file is missing or the path escapes attachments/
+     */
+    public File getAttachmentFile(JobAttachment attachment) throws IOException {
+        File attachmentsDir = new File(baseDirectory, ATTACHMENTS_DIR_NAME);
+        File file = new File(attachmentsDir, attachment.getRelativePath());
+
+        String dirPath = attachmentsDir.getCanonicalPath() + File.separator;
+        if (!file.getCanonicalPath().startsWith(dirPath)) {
+            throw new IOException("Attachment path outside attachments directory: "
+                    + attachment.getRelativePath());
+        }
+        if (!file.isFile()) {
+            throw new IOException("Attachment file not found: " + attachment.getRelativePath());
+        }
+        return file;
+    }
+
     /**
      * Removes all pending/in-progress jobs that target the given record ID.
      * Used when replacing a passkey on a record that has a pending job (not yet in vault).
@@ -274,38 +458,79 @@ public class JobFileManager {
      * @throws Exception if reading or writing fails
      */
     public int removeJobsForRecord(String recordId, byte[] hashedPassword) throws Exception {
-        List<Job> jobs = readJobs(hashedPassword);
-        int originalCount = jobs.size();
+        if (!jobFileExists() || !loadIndex(hashedPassword).hasPendingForRecord(recordId)) {
+            return 0;
+        }
 
-        jobs.removeIf(job -> {
-            if (job.getStatus() != Job.JobStatus.PENDING && job.getStatus() != Job.JobStatus.IN_PROGRESS) {
-                return false;
-            }
-            try {
-                if (job.getType() == Job.JobType.ADD_PASSKEY) {
-                    AddPasskeyPayload payload = AddPasskeyPayload.fromJSON(job.getPayload());
-                    return recordId.equals(payload.getRecordId());
-                } else if (job.getType() == Job.JobType.UPDATE_PASSKEY) {
-                    UpdatePasskeyPayload payload = UpdatePasskeyPayload.fromJSON(job.getPayload());
-                    return recordId.equals(payload.getExistingRecordId());
+        int[] removedCount = {0};
+        updateJobs(hashedPassword, jobs -> {
+            int originalCount = jobs.size();
+            jobs.removeIf(job -> isPendingJobForRecord(job, recordId));
+            removedCount[0] = originalCount - jobs.size();
+            return removedCount[0] > 0;
+        });
+
+        if (removedCount[0] > 0) {
+            SecureLog.d(TAG, "Removed " + removedCount[0] + " pending job(s) for record " + recordId);
+        }
+        return removedCount[0];
+    }
+
+    /**
+     * Remove the pending jobs for {@code recordIds} and append {@code newJobs}
+     * in a single read-modify-write of the queue. Used by {@link JobBatch}.
+     *
+     * @return Number of bytes written to the job file
+     * @throws Exception if reading or writing fails
+     */
+    long applyBatch(List<String> recordIds, List<Job> newJobs, byte[] hashedPassword) throws Exception {
+        if (recordIds.isEmpty() || !jobFileExists()) {
+            return appendJobs(newJobs, hashedPassword);
+        }
+        JobIndex index = loadIndex(hashedPassword);
+        boolean anyPending = false;
+        for (String recordId : recordIds) {
+            anyPending |= index.hasPendingForRecord(recordId);
+        }
+        if (!anyPending) {
+            return appendJobs(newJobs, hashedPassword);
+        }
+
+        int[] removedCount = {0};
+        long written = updateJobs(hashedPassword, jobs -> {
+            int originalCount = jobs.size();
+            jobs.removeIf(job -> {
+                for (String recordId : recordIds) {
+                    if (isPendingJobForRecord(job, recordId)) {
+                        return true;
+                    }
                 }
-            } catch (JSONException e) {
-                SecureLog.e(TAG, "Failed to parse job payload during removal: " + e.getMessage());
-            }
-            return false;
+                return false;
+            });
+            removedCount[0] = originalCount - jobs.size();
+            jobs.addAll(newJobs);
+            return removedCount[0] > 0 || !newJobs.isEmpty();
         });
+        SecureLog.d(TAG, "Removed " + removedCount[0] + " pending job(s) and appended " + newJobs.size());
+        return written;
+    }
 
-        int removedCount = originalCount - jobs.size();
-        if (removedCount > 0) {
-            if (jobs.isEmpty()) {
-                deleteJobFile();
-            } else {
-                writeJobs(jobs, hashedPassword);
+    private static boolean isPendingJobForRecord(Job job, String recordId) {
+        if (job.getStatus() != Job.JobStatus.PENDING && job.getStatus() != Job.JobStatus.IN_PROGRESS) {
+            return false;
+        }
+        try {
+            if (job.getType() == Job.JobType.ADD_PASSKEY) {
+                AddPasskeyPayload payload = AddPasskeyPayload.fromJSON(job.getPayload());
+                return recordId.equals(payload.getRecordId());
+            } else if (job.getType() == Job.JobType.UPDATE_PASSKEY) {
+                UpdatePasskeyPayload payload = UpdatePasskeyPayload.fromJSON(job.getPayload());
+                return recordId.equals(payload.getExistingRecordId());
             }
-            SecureLog.d(TAG, "Removed " + removedCount + " pending job(s) for record " + recordId);
+        } catch (JSONException e) {
+            SecureLog.e(TAG, "Failed to parse job payload during removal: " + e.getMessage());
         }
-
-        return removedCount;
+        return false;
     }
 
     /**
@@ -318,23 +543,26 @@ public class JobFileManager {
      * @throws Exception if reading fails
      */
     public boolean hasPendingAddJob(String recordId, byte[] hashedPassword) throws Exception {
-        List<Job> jobs = readJobs(hashedPassword);
-        for (Job job : jobs) {
-            if (job.getStatus() != Job.JobStatus.PENDING && job.getStatus() != Job.JobStatus.IN_PROGRESS) {
-                continue;
-            }
-            if (job.getType() == Job.JobType.ADD_PASSKEY) {
-                try {
-                    AddPasskeyPayload payload = AddPasskeyPayload.fromJSON(job.getPayload());
-                    if (recordId.equals(payload.getRecordId())) {
-                        return true;
-                    }
-                } catch (JSONException e) {
-                    // Skip malformed jobs
-                }
-            }
+        if (!jobFileExists()) {
+            return false;
         }
-        return false;
+        return loadIndex(hashedPassword).hasPendingAdd(recordId);
+    }
+
+    /**
+     * Check whether any job is pending or in progress, answered from the side
+     * index without decrypting the queued jobs.
+     *
+     * @param vaultId        The vault to check, or null for any vault
+     * @param hashedPassword 32-byte encryption key
+     * @return true if {@link #readJobs} would return pending jobs for the vault
+     * @throws Exception if the job file cannot be read to rebuild the index
+     */
+    public boolean hasPendingJobs(String vaultId, byte[] hashedPassword) throws Exception {
+        if (!jobFileExists()) {
+            return false;
+        }
+        return loadIndex(hashedPassword).hasPending(vaultId);
     }
 
     /**
@@ -346,6 +574,7 @@ public class JobFileManager {
             jobFile.delete();
             SecureLog.d(TAG, "Deleted job file");
         }
+        JobIndex.delete(baseDirectory);
     }
 
     /**
@@ -361,6 +590,167 @@ public class JobFileManager {
 
     // --- Private helpers ---
 
+    /**
+     * Run {@code write} holding this process's lock and the cross-process lock
+     * on {@code jobs.lock}. Nested calls on the same thread run directly.
+     */
+    private <T> T withWriteLock(LockedWrite<T> write) throws Exception {
+        if (processLock.isHeldByCurrentThread()) {
+            return write.run();
+        }
+
+        if (!baseDirectory.exists()) {
+            if (!baseDirectory.mkdirs()) {
+                throw new IOException("Failed to create job directory: " + baseDirectory.getAbsolutePath());
+            }
+        }
+
+        processLock.lock();
+        try (RandomAccessFile lockFile = new RandomAccessFile(new File(baseDirectory, LOCK_FILE_NAME), "rw");
+             FileLock ignored = lockFile.getChannel().lock()) {
+            return write.run();
+        } finally {
+            processLock.unlock();
+        }
+    }
+
+    /**
+     * Read the jobs, apply {@code update}, and write them back, retrying on
+     * fresh data if the job file changed in between (e.g. the main app drained
+     * the queue). Deletes the job file when no jobs remain.
+     *
+     * @return Number of bytes written to the job file
+     */
+    private long updateJobs(byte[] hashedPassword, JobUpdate update) throws Exception {
+        return withWriteLock(() -> {
+            for (int attempt = 1; ; attempt++) {
+                String stamp = jobFileStamp();
+                List<Job> jobs = readJobs(hashedPassword);
+                if (!update.apply(jobs)) {
+                    return 0L;
+                }
+                try {
+                    if (jobs.isEmpty()) {
+                        if (!stamp.equals(jobFileStamp())) {
+                            throw new JobQueueConflictException();
+                        }
+                        deleteJobFile();
+                        return 0L;
+                    }
+                    return commitJobs(jobs, hashedPassword, stamp);
+                } catch (JobQueueConflictException e) {
+                    if (attempt >= MAX_WRITE_ATTEMPTS) {
+                        throw e;
+                    }
+                    SecureLog.w(TAG, "Job file changed during update, retrying (attempt " + attempt + ")");
+                }
+            }
+        });
+    }
+
+    /**
+     * Read the generation counter of the current job file.
+     *
+     * @return The generation, or 0 if there is no readable job file
+     */
+    private long readGeneration() {
+        File jobFile = new File(baseDirectory, JOB_FILE_NAME);
+        if (!jobFile.exists()) {
+            return 0;
+        }
+        byte[] header = new byte[HEADER_SIZE];
+        try (FileInputStream fis = new FileInputStream(jobFile)) {
+            if (readFully(fis, header) < HEADER_SIZE) {
+                return 0;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+        return ByteBuffer.wrap(header, 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt() & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Load the side index of the job file, rebuilding it with a full read if it
+     * is missing or was made stale by another writer (e.g. the main app).
+     */
+    private JobIndex loadIndex(byte[] hashedPassword) throws Exception {
+        String stamp = jobFileStamp();
+        JobIndex index = JobIndex.read(baseDirectory, stamp, hashedPassword);
+        if (index == null) {
+            index = JobIndex.fromJobs(readJobs(hashedPassword), stamp);
+            writeIndex(index, hashedPassword);
+        }
+        return index;
+    }
+
+    /**
+     * Persist the side index. Failures only cost a rebuild on the next lookup.
+     */
+    private void writeIndex(JobIndex index, byte[] hashedPassword) {
+        try {
+            index.write(baseDirectory, hashedPassword);
+        } catch (Exception e) {
+            SecureLog.w(TAG, "Failed to write job index: " + e.getMessage());
+            JobIndex.delete(baseDirectory);
+        }
+    }
+
+    /**
+     * Identify the current job file contents cheaply: its size plus the bytes
+     * right after the header. Every write uses a fresh random nonce there.
+     */
+    private String jobFileStamp() throws IOException {
+        File jobFile = new File(baseDirectory, JOB_FILE_NAME);
+        byte[] head = new byte[HEADER_SIZE + 32];
+        int read;
+        long length;
+        try (FileInputStream fis = new FileInputStream(jobFile)) {
+            // Length and bytes of the same file, even if it is replaced meanwhile
+            length = fis.getChannel().size();
+            read = readFully(fis, head);
+        } catch (FileNotFoundException e) {
+            return "none";
+        }
+        StringBuilder stamp = new StringBuilder().append(length).append(':');
+        for (int i = HEADER_SIZE; i < read; i++) {
+            stamp.append(String.format("%02x", head[i]));
+        }
+        return stamp.toString();
+    }
+
+    /**
+     * Rename {@code tempFile} over the job file, unless the job file no longer
+     * matches {@code expectedStamp}. Must be called under the write lock; the
+     * stamp is checked as the last step before the rename, after everything
+     * slow (encryption, fsync) is done.
+     *
+     * @param expectedStamp Stamp of the file the new contents were derived from, or null to overwrite
+     * @throws JobQueueConflictException if the job file changed in the meantime
+     */
+    private void replaceJobFile(File tempFile, String expectedStamp) throws IOException {
+        if (!processLock.isHeldByCurrentThread()) {
+            tempFile.delete();
+            throw new IllegalStateException("Job file replaced without the write lock");
+        }
+
+        File jobFile = new File(baseDirectory, JOB_FILE_NAME);
+        if (expectedStamp != null && !expectedStamp.equals(jobFileStamp())) {
+            tempFile.delete();
+            throw new JobQueueConflictException();
+        }
+
+        if (!tempFile.renameTo(jobFile)) {
+            // Fallback: delete target and retry
+            if (jobFile.exists()) {
+                jobFile.delete();
+            }
+            if (!tempFile.renameTo(jobFile)) {
+                tempFile.delete();
+                throw new IOException("Failed to atomically rename temp file to " + jobFile.getAbsolutePath());
+            }
+        }
+    }
+
     /**
      * Build the 16-byte file header.
      *
@@ -368,9 +758,10 @@ public class JobFileManager {
      *   [0..3]   Magic: "PPJQ" (4 bytes ASCII)
      *   [4..5]   Version: uint16 LE
      *   [6..7]   Job Count: uint16 LE
-     *   [8..15]  Reserved: zeros
+     *   [8..11]  Generation: uint32 LE
+     *   [12..15] Reserved: zeros
      */
-    private byte[] buildHeader(int jobCount) {
+    private byte[] buildHeader(int jobCount, long generation) {
         ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
         header.order(ByteOrder.LITTLE_ENDIAN);
 
@@ -383,7 +774,10 @@ public class JobFileManager {
         // Job count (uint16 LE)
         header.putShort((short) jobCount);
 
-        // Reserved (8 bytes of zeros) — already zero-initialized by ByteBuffer.allocate
+        // Generation (uint32 LE)
+        header.putInt((int) generation);
+
+        // Reserved (4 bytes of zeros) — already zero-initialized by ByteBuffer.allocate
 
         return header.array();
     }
@@ -416,20 +810,18 @@ public class JobFileManager {
     }
 
     /**
-     * Read all bytes from a file.
+     * Fill {@code buffer} from the stream.
+     *
+     * @return Number of bytes read; less than the buffer length only at end of file
      */
-    private byte[] readFileBytes(File file) throws IOException {
-        int length = (int) file.length();
-        byte[] data = new byte[length];
-        try (FileInputStream fis = new FileInputStream(file)) {
-            int offset = 0;
-            while (offset < length) {
-                int read = fis.read(data, offset, length - offset);
-                if (read == -1) break;
-                offset += read;
-            }
+    private static int readFully(FileInputStream in, byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int read = in.read(buffer, offset, buffer.length - offset);
+            if (read == -1) break;
+            offset += read;
         }
-        return data;
+        return offset;
     }
 
     /**
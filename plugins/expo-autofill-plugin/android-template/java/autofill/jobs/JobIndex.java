@@ -0,0 +1,293 @@
+package com.pears.pass.autofill.jobs;
+
+import com.pears.pass.autofill.utils.SecureLog;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encrypted side index of the job file, so that "is anything pending for this
+ * record / vault" checks do not have to decrypt and parse every queued job.
+ *
+ * Each entry holds only the job id, type, status, vault id, and the record id
+ * the job targets. The index remembers a stamp of the job file it describes
+ * (size plus the bytes following the header, which include the random nonce of
+ * every full write). When the job file is changed by anyone else, such as the
+ * main app after processing the queue, the stamps no longer match and the
+ * index is ignored and rebuilt.
+ *
+ * File format (binary):
+ * <pre>
+ *   [Header 16 bytes]
+ *     Magic: "PPJI" (4 bytes ASCII)
+ *     Version: uint16 LE (2 bytes) — currently 1
+ *     Entry Count: uint16 LE (2 bytes)
+ *     Reserved: (8 bytes of zeros)
+ *   [Nonce 24 bytes]
+ *   [Encrypted payload (variable)]
+ *     When decrypted, yields {"stamp": "...", "entries": [...]}.
+ * </pre>
+ *
+ * Stored next to the job file and encrypted with the same key.
+ */
+public class JobIndex {
+    private static final String TAG = "JobIndex";
+
+    private static final byte[] MAGIC = "PPJI".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    static final String INDEX_FILE_NAME = "jobs.idx.enc";
+
+    /**
+     * Index entry for one queued job.
+     */
+    public static class Entry {
+        public final String jobId;
+        public final Job.JobType type;
+        public final Job.JobStatus status;
+        public final String vaultId;
+        public final String recordId;
+
+        Entry(String jobId, Job.JobType type, Job.JobStatus status, String vaultId, String recordId) {
+            this.jobId = jobId;
+            this.type = type;
+            this.status = status;
+            this.vaultId = vaultId;
+            this.recordId = recordId;
+        }
+
+        public boolean isPending() {
+            return status == Job.JobStatus.PENDING || status == Job.JobStatus.IN_PROGRESS;
+        }
+
+        static Entry fromJob(Job job) {
+            JSONObject payload = job.getPayload();
+            String recordId = null;
+            if (payload != null) {
+                String key = job.getType() == Job.JobType.UPDATE_PASSKEY ? "existingRecordId" : "recordId";
+                recordId = payload.optString(key, null);
+            }
+            return new Entry(job.getId(), job.getType(), job.getStatus(), job.getVaultId(), recordId);
+        }
+
+        JSONObject toJSON() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("jobId", jobId);
+            json.put("type", type.getValue());
+            json.put("status", status.getValue());
+            json.put("vaultId", vaultId);
+            json.put("recordId", recordId);
+            return json;
+        }
+
+        static Entry fromJSON(JSONObject json) throws JSONException {
+            return new Entry(
+                    json.getString("jobId"),
+                    Job.JobType.fromString(json.getString("type")),
+                    Job.JobStatus.fromString(json.getString("status")),
+                    json.optString("vaultId", null),
+                    json.optString("recordId", null));
+        }
+    }
+
+    private final String stamp;
+    private final List<Entry> entries;
+    private final Map<String, List<Entry>> byRecordId = new HashMap<>();
+    private final Map<String, Integer> pendingByVaultId = new HashMap<>();
+    private int pendingCount = 0;
+
+    JobIndex(String stamp, List<Entry> entries) {
+        this.stamp = stamp;
+        this.entries = entries;
+        for (Entry entry : entries) {
+            if (entry.recordId != null) {
+                List<Entry> forRecord = byRecordId.get(entry.recordId);
+                if (forRecord == null) {
+                    forRecord = new ArrayList<>(1);
+                    byRecordId.put(entry.recordId, forRecord);
+                }
+                forRecord.add(entry);
+            }
+            if (entry.isPending()) {
+                pendingCount++;
+                Integer count = pendingByVaultId.get(entry.vaultId);
+                pendingByVaultId.put(entry.vaultId, count == null ? 1 : count + 1);
+            }
+        }
+    }
+
+    /**
+     * Build an index of {@code jobs} for the job file identified by {@code stamp}.
+     */
+    static JobIndex fromJobs(List<Job> jobs, String stamp) {
+        List<Entry> entries = new ArrayList<>(jobs.size());
+        for (Job job : jobs) {
+            entries.add(Entry.fromJob(job));
+        }
+        return new JobIndex(stamp, entries);
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return true if a pending or in-progress ADD_PASSKEY job creates {@code recordId}
+     */
+    public boolean hasPendingAdd(String recordId) {
+        List<Entry> forRecord = byRecordId.get(recordId);
+        if (forRecord == null) return false;
+        for (Entry entry : forRecord) {
+            if (entry.isPending() && entry.type == Job.JobType.ADD_PASSKEY) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if any pending or in-progress job targets {@code recordId}
+     */
+    public boolean hasPendingForRecord(String recordId) {
+        List<Entry> forRecord = byRecordId.get(recordId);
+        if (forRecord == null) return false;
+        for (Entry entry : forRecord) {
+            if (entry.isPending()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param vaultId The vault to check, or null for any vault
+     * @return true if any job for the vault is pending or in progress
+     */
+    public boolean hasPending(String vaultId) {
+        if (vaultId == null) {
+            return pendingCount > 0;
+        }
+        return pendingByVaultId.containsKey(vaultId);
+    }
+
+    /**
+     * Read the index, provided it still describes the job file.
+     *
+     * @param expectedStamp Stamp of the current job file
+     * @return The index, or null if it is missing, stale, or unreadable
+     */
+    static JobIndex read(File baseDirectory, String expectedStamp, byte[] hashedPassword) {
+        File indexFile = new File(baseDirectory, INDEX_FILE_NAME);
+        if (!indexFile.exists() || indexFile.length() == 0) {
+            return null;
+        }
+
+        try {
+            byte[] fileData = new byte[(int) indexFile.length()];
+            try (FileInputStream fis = new FileInputStream(indexFile)) {
+                int offset = 0;
+                while (offset < fileData.length) {
+                    int read = fis.read(fileData, offset, fileData.length - offset);
+                    if (read < 0) {
+                        throw new IOException("Unexpected end of job index");
+                    }
+                    offset += read;
+                }
+            }
+            if (fileData.length < HEADER_SIZE + JobEncryption.NONCE_BYTES + JobEncryption.MAC_BYTES + 1) {
+                throw new IOException("Job index too small: " + fileData.length + " bytes");
+            }
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (fileData[i] != MAGIC[i]) {
+                    throw new IOException("Invalid magic bytes in job index");
+                }
+            }
+            int version = ByteBuffer.wrap(fileData, 4, 2).order(ByteOrder.LITTLE_ENDIAN).getShort() & 0xFFFF;
+            if (version != VERSION) {
+                throw new IOException("Unsupported job index version: " + version);
+            }
+
+            byte[] plaintext = new byte[JobEncryption.openedLength(fileData.length - HEADER_SIZE)];
+            JobEncryption.decrypt(fileData, HEADER_SIZE, fileData.length - HEADER_SIZE,
+                    hashedPassword, plaintext, 0);
+            String json = new String(plaintext, StandardCharsets.UTF_8);
+            JobEncryption.secureZero(plaintext);
+
+            JSONObject root = new JSONObject(json);
+            if (!expectedStamp.equals(root.optString("stamp"))) {
+                SecureLog.d(TAG, "Job index is stale, ignoring");
+                return null;
+            }
+            JSONArray array = root.getJSONArray("entries");
+            List<Entry> entries = new ArrayList<>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                entries.add(Entry.fromJSON(array.getJSONObject(i)));
+            }
+            return new JobIndex(expectedStamp, entries);
+        } catch (Exception e) {
+            SecureLog.w(TAG, "Ignoring unreadable job index: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write the index. Uses atomic write: temp file, fsync, rename.
+     */
+    void write(File baseDirectory, byte[] hashedPassword) throws Exception {
+        JSONArray array = new JSONArray();
+        for (Entry entry : entries) {
+            array.put(entry.toJSON());
+        }
+        JSONObject root = new JSONObject();
+        root.put("stamp", stamp);
+        root.put("entries", array);
+
+        byte[] jsonBytes = root.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] fileData = new byte[HEADER_SIZE + JobEncryption.sealedLength(jsonBytes.length)];
+        JobEncryption.encrypt(jsonBytes, 0, jsonBytes.length, hashedPassword, fileData, HEADER_SIZE);
+        JobEncryption.secureZero(jsonBytes);
+
+        ByteBuffer header = ByteBuffer.wrap(fileData, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC);
+        header.putShort((short) VERSION);
+        header.putShort((short) Math.min(entries.size(), 0xFFFF));
+
+        File indexFile = new File(baseDirectory, INDEX_FILE_NAME);
+        File tempFile = new File(baseDirectory, INDEX_FILE_NAME + ".tmp");
+
+        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+            fos.write(fileData);
+            fos.getFD().sync();
+        }
+
+        if (!tempFile.renameTo(indexFile)) {
+            if (indexFile.exists()) {
+                indexFile.delete();
+            }
+            if (!tempFile.renameTo(indexFile)) {
+                tempFile.delete();
+                throw new IOException("Failed to atomically rename temp file to " + indexFile.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Delete the index file.
+     */
+    static void delete(File baseDirectory) {
+        File indexFile = new File(baseDirectory, INDEX_FILE_NAME);
+        if (indexFile.exists()) {
+            indexFile.delete();
+        }
+    }
+}
@@ -26,6 +26,9 @@ import java.util.UUID;
  *       hashedPassword
  *   );
  * </pre>
+ *
+ * To write several jobs at once, pass a {@link JobBatch} instead of the key and
+ * commit the batch afterwards; the queue is then encrypted and synced once.
  */
 public class PasskeyJobCreator {
     private static final String TAG = "PasskeyJobCreator";
@@ -60,18 +63,33 @@ public class PasskeyJobCreator {
             String userId, String userName, String userDisplayName,
             byte[] hashedPassword) throws Exception {
 
+        JobBatch batch = new JobBatch(jobFileManager);
+        String jobId = createAddPasskeyJob(batch, vaultId, credential, formData,
+                rpId, rpName, userId, userName, userDisplayName);
+        batch.commit(hashedPassword);
+        return jobId;
+    }
+
+    /**
+     * Stage an ADD_PASSKEY job and its attachments in {@code batch}. Nothing is
+     * written until the batch is committed.
+     *
+     * @return The job ID (UUID string)
+     * @throws Exception if building the payload fails
+     * @see #createAddPasskeyJob(String, PasskeyCredential, PasskeyFormData, String, String, String, String, String, byte[])
+     */
+    public String createAddPasskeyJob(
+            JobBatch batch,
+            String vaultId,
+            PasskeyCredential credential,
+            PasskeyFormData formData,
+            String rpId, String rpName,
+            String userId, String userName, String userDisplayName) throws Exception {
+
         SecureLog.d(TAG, "Creating ADD_PASSKEY job for rpId: " + rpId);
 
-        // 1. Save attachment files to pearpass_jobs/attachments/
-        List<JobAttachment> attachments = new ArrayList<>();
-        if (formData.getAttachments() != null) {
-            for (PasskeyFormData.AttachmentFile attachment : formData.getAttachments()) {
-                String attachmentId = UUID.randomUUID().toString();
-                String relativePath = jobFileManager.saveAttachment(
-                        attachment.getData(), attachmentId, attachment.getName());
-                attachments.add(new JobAttachment(attachmentId, attachment.getName(), relativePath));
-            }
-        }
+        // 1. Stage attachment files, saved to pearpass_jobs/attachments/ on commit
+        List<JobAttachment> attachments = stageAttachments(batch, formData);
 
         // 2. Build the payload
         String recordId = UUID.randomUUID().toString();
@@ -97,7 +115,7 @@ public class PasskeyJobCreator {
                 attachments
         );
 
-        // 3. Create the job and append to the encrypted queue
+        // 3. Create the job and stage it for the encrypted queue
         Job job = new Job(
                 UUID.randomUUID().toString(),
                 Job.JobType.ADD_PASSKEY,
@@ -109,9 +127,9 @@ public class PasskeyJobCreator {
                 payload.toJSON()
         );
 
-        jobFileManager.appendJob(job, hashedPassword);
+        batch.addJob(job);
 
-        SecureLog.d(TAG, "Created ADD_PASSKEY job " + job.getId()
+        SecureLog.d(TAG, "Staged ADD_PASSKEY job " + job.getId()
                 + " with " + attachments.size() + " attachment(s)");
         return job.getId();
     }
@@ -142,18 +160,34 @@ public class PasskeyJobCreator {
             String userId, String userName, String userDisplayName,
             byte[] hashedPassword) throws Exception {
 
+        JobBatch batch = new JobBatch(jobFileManager);
+        String jobId = createUpdatePasskeyJob(batch, vaultId, existingRecordId, credential, formData,
+                rpId, rpName, userId, userName, userDisplayName);
+        batch.commit(hashedPassword);
+        return jobId;
+    }
+
+    /**
+     * Stage an UPDATE_PASSKEY job and its new attachments in {@code batch}.
+     * Nothing is written until the batch is committed.
+     *
+     * @return The job ID (UUID string)
+     * @throws Exception if building the payload fails
+     * @see #createUpdatePasskeyJob(String, String, PasskeyCredential, PasskeyFormData, String, String, String, String, String, byte[])
+     */
+    public String createUpdatePasskeyJob(
+            JobBatch batch,
+            String vaultId,
+            String existingRecordId,
+            PasskeyCredential credential,
+            PasskeyFormData formData,
+            String rpId, String rpName,
+            String userId, String userName, String userDisplayName) throws Exception {
+
         SecureLog.d(TAG, "Creating UPDATE_PASSKEY job for record: " + existingRecordId);
 
-        // 1. Save new attachment files to pearpass_jobs/attachments/
-        List<JobAttachment> attachments = new ArrayList<>();
-        if (formData.getAttachments() != null) {
-            for (PasskeyFormData.AttachmentFile attachment : formData.getAttachments()) {
-                String attachmentId = UUID.randomUUID().toString();
-                String relativePath = jobFileManager.saveAttachment(
-                        attachment.getData(), attachmentId, attachment.getName());
-                attachments.add(new JobAttachment(attachmentId, attachment.getName(), relativePath));
-            }
-        }
+        // 1. Stage attachment files, saved to pearpass_jobs/attachments/ on commit
+        List<JobAttachment> attachments = stageAttachments(batch, formData);
 
         long createdAt = System.currentTimeMillis();
 
@@ -181,7 +215,7 @@ public class PasskeyJobCreator {
                 formData.getKeepAttachmentIds()
         );
 
-        // 3. Create the job and append to the encrypted queue
+        // 3. Create the job and stage it for the encrypted queue
         Job job = new Job(
                 UUID.randomUUID().toString(),
                 Job.JobType.UPDATE_PASSKEY,
@@ -193,11 +227,21 @@ public class PasskeyJobCreator {
                 payload.toJSON()
         );
 
-        jobFileManager.appendJob(job, hashedPassword);
+        batch.addJob(job);
 
-        SecureLog.d(TAG, "Created UPDATE_PASSKEY job " + job.getId()
+        SecureLog.d(TAG, "Staged UPDATE_PASSKEY job " + job.getId()
                 + " for existing record " + existingRecordId
                 + " with " + attachments.size() + " attachment(s)");
         return job.getId();
     }
+
+    private static List<JobAttachment> stageAttachments(JobBatch batch, PasskeyFormData formData) {
+        List<JobAttachment> attachments = new ArrayList<>();
+        if (formData.getAttachments() != null) {
+            for (PasskeyFormData.AttachmentFile attachment : formData.getAttachments()) {
+                attachments.add(batch.stageAttachment(attachment.getData(), attachment.getName()));
+            }
+        }
+        return attachments;
+    }
 }
@@ -29,6 +29,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.RequiresApi;
 
 import com.pears.pass.R;
+import com.pears.pass.autofill.data.VaultClientPool;
 import com.pears.pass.autofill.ui.AuthenticationActivity;
 import com.pears.pass.autofill.utils.AutofillHelper;
 import com.pears.pass.autofill.utils.AutofillConstants;
@@ -177,6 +178,19 @@ public class PearPassAutofillService extends AutofillService {
 
         FillResponse response = responseBuilder.build();
         callback.onSuccess(response);
+
+        // Covers fill requests arriving before onConnected or after an idle shutdown
+        if (!targetIds.isEmpty()) {
+            prewarmVaultClient();
+        }
+    }
+
+    /**
+     * Start the worklet AuthenticationActivity will use, with the same options,
+     * so it is ready by the time the user taps the suggestion.
+     */
+    private void prewarmVaultClient() {
+        VaultClientPool.prewarm(this, true, true);
     }
 
     private static void addIfNotNull(java.util.List<AutofillId> ids, AutofillId id) {
@@ -192,6 +206,13 @@ public class PearPassAutofillService extends AutofillService {
     @Override
     public void onConnected() {
         super.onConnected();
+        prewarmVaultClient();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        VaultClientPool.onTrimMemory(level);
     }
 
     @Override
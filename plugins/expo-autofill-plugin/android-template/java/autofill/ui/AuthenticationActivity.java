@@ -29,6 +29,7 @@ import com.pears.pass.autofill.crypto.PasskeyCrypto;
 import com.pears.pass.autofill.data.CredentialItem;
 import com.pears.pass.autofill.data.PasskeyCredential;
 import com.pears.pass.autofill.data.PearPassVaultClient;
+import com.pears.pass.autofill.data.VaultClientPool;
 import com.pears.pass.autofill.utils.SecureLog;
 import com.pears.pass.autofill.utils.VaultInitializer;
 
@@ -518,7 +519,7 @@ public class AuthenticationActivity extends AppCompatActivity implements Navigat
             return; // Already initialized
         }
 
-        vaultClient = new PearPassVaultClient(this, null, true);
+        vaultClient = VaultClientPool.acquire(this, true, true);
 
         SecureLog.d(TAG, "Starting vault initialization...");
         VaultInitializer.initialize(vaultClient, new VaultInitializer.Callback() {
@@ -747,19 +748,12 @@ public class AuthenticationActivity extends AppCompatActivity implements Navigat
 
         SecureLog.d(TAG, "Cleaning up vault client...");
 
-        final PearPassVaultClient clientToClose = vaultClient;
+        final PearPassVaultClient clientToRelease = vaultClient;
         vaultClient = null; // Clear reference immediately to prevent reuse
 
-        try {
-            // Wait synchronously for cleanup to complete
-            // We MUST wait to ensure the database is released before onResume creates a new worklet
-            // Shutdown is now synchronous so it should complete quickly (< 500ms)
-            clientToClose.closeAllInstances().get(500, java.util.concurrent.TimeUnit.MILLISECONDS);
-            SecureLog.d(TAG, "Cleanup completed successfully");
-        } catch (java.util.concurrent.TimeoutException e) {
-            SecureLog.w(TAG, "Cleanup timed out after 500ms, continuing anyway");
-        } catch (Exception e) {
-            SecureLog.w(TAG, "Error during cleanup: " + e.getMessage());
-        }
+        // Locks the vaults synchronously so the next session must authenticate again;
+        // the worklet itself stays warm for a short while for back-to-back fills
+        VaultClientPool.release(clientToRelease);
+        SecureLog.d(TAG, "Cleanup completed successfully");
     }
 }
\ No newline at end of file
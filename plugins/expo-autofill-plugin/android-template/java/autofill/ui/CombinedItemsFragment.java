@@ -28,21 +28,28 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.pears.pass.R;
+import com.pears.pass.autofill.data.CredentialIndex;
 import com.pears.pass.autofill.data.CredentialItem;
 import com.pears.pass.autofill.data.PearPassVaultClient;
+import com.pears.pass.autofill.data.RecordQuery;
+import com.pears.pass.autofill.data.VaultHandle;
 import com.pears.pass.autofill.data.VaultItem;
+import com.pears.pass.autofill.data.VaultRecord;
 import com.pears.pass.autofill.jobs.AddPasskeyPayload;
 import com.pears.pass.autofill.jobs.Job;
 import com.pears.pass.autofill.jobs.JobEncryption;
 import com.pears.pass.autofill.jobs.JobFileManager;
 import com.pears.pass.autofill.jobs.UpdatePasskeyPayload;
 import com.pears.pass.autofill.utils.AutofillConstants;
+import com.pears.pass.autofill.utils.PublicSuffixList;
 import com.pears.pass.autofill.utils.SecureBufferUtils;
 import com.pears.pass.autofill.utils.SecureLog;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -69,6 +76,10 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
     private static final String ARG_USER_NAME = "user_name";
     private static final String ARG_RECORD_TYPE = "record_type";
 
+    // Records converted per streamed chunk; small enough that the first
+    // matches render almost immediately on large vaults.
+    private static final int RECORD_CHUNK_SIZE = 50;
+
     private String mode;
     private String webDomain;
     private String packageName;
@@ -100,9 +111,15 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
     private final List<VaultItem> vaults = new ArrayList<>();
     private VaultItem selectedVault;
     private final List<CredentialItem> allCredentials = new ArrayList<>();
+    // Raw records of the current load, by id. Only touched on the UI thread, and
+    // only after the generation check, so a superseded load can't write into it.
     private final Map<String, Map<String, Object>> rawRecordsById = new HashMap<>();
     private boolean hasUserSearched = false;
     private boolean dropdownExpanded = false;
+    // Bumped on every vault load so late chunks from a previous load are ignored.
+    private int loadGeneration = 0;
+    // Display-only items from the credential index, shown until real records arrive.
+    private final Set<CredentialItem> indexPreviewItems = Collections.newSetFromMap(new IdentityHashMap<>());
 
     public static CombinedItemsFragment newInstance(String mode,
                                                     String webDomain,
@@ -363,7 +380,7 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
     private void selectVault(VaultItem vault) {
         this.selectedVault = vault;
         vaultSelectorTitle.setText(vault.getName());
-        if (vault.isLocked()) {
+        if (vault.isLocked() && !vaultClient.hasCachedVaultKey(vault.getId())) {
             showPasswordPrompt();
         } else {
             unlockAndLoad(vault, null);
@@ -372,18 +389,18 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
 
     private void unlockAndLoad(VaultItem vault, @Nullable byte[] passwordBuffer) {
         showLoading();
+        final int generation = ++loadGeneration;
+        allCredentials.clear();
+        rawRecordsById.clear();
+        indexPreviewItems.clear();
         CompletableFuture.runAsync(() -> {
             try {
-                try { vaultClient.activeVaultClose().get(); }
-                catch (Exception ignored) {}
-
-                boolean ok;
-                if (passwordBuffer != null) {
-                    ok = vaultClient.getVaultById(vault.getId(), passwordBuffer).get();
-                } else {
-                    ok = vaultClient.getVaultById(vault.getId(), (String) null).get();
+                if (usesCredentialIndex(vault)) {
+                    showIndexedCredentials(vault.getId(), generation);
                 }
-                if (!ok) throw new RuntimeException("Failed to activate vault");
+
+                // Queued behind any other vault switch, such as a running cross-vault search
+                VaultHandle handle = vaultClient.openVault(vault.getId(), passwordBuffer).get();
 
                 // Registration: inform activity so vaultReadyFuture + selectedVaultId get set.
                 if (MODE_REGISTRATION.equals(mode) && getActivity() instanceof PasskeyRegistrationActivity) {
@@ -397,15 +414,16 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
 
                 // V1 parity: registration mode pulls the rpId/userName matches +
                 // pending passkey jobs (mirroring searchForExistingCredentials).
-                // Assertion mode keeps loading the full vault for domain filtering.
-                List<Map<String, Object>> records;
+                // Assertion mode loads the full vault in chunks for domain filtering.
+                List<CredentialItem> parsed = new ArrayList<>();
+                Map<String, Map<String, Object>> raw = new HashMap<>();
                 if (MODE_REGISTRATION.equals(mode) && getActivity() instanceof PasskeyRegistrationActivity) {
-                    records = ((PasskeyRegistrationActivity) getActivity())
+                    List<Map<String, Object>> records = ((PasskeyRegistrationActivity) getActivity())
                             .loadV2RegistrationMatches().get();
+                    appendCredentials(records, parsed, raw);
                 } else {
-                    records = vaultClient.activeVaultList("record/").get();
+                    streamCredentials(handle, generation, parsed, raw);
                 }
-                List<CredentialItem> parsed = parseCredentials(records);
 
                 // Merge pending passkey jobs in assertion mode (registration handles its own).
                 if (MODE_ASSERTION.equals(mode)) {
@@ -422,12 +440,22 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
                 if (getActivity() == null) return;
                 final List<CredentialItem> finalParsed = parsed;
                 getActivity().runOnUiThread(() -> {
+                    if (generation != loadGeneration) return;
+                    indexPreviewItems.clear();
                     allCredentials.clear();
                     allCredentials.addAll(finalParsed);
+                    rawRecordsById.clear();
+                    rawRecordsById.putAll(raw);
                     hasUserSearched = false;
                     hidePasswordPrompt();
                     applyFilter(searchInput.getText().toString());
                 });
+
+                if (usesCredentialIndex(vault)) {
+                    updateCredentialIndex(vault.getId(), finalParsed);
+                }
+
+                searchOtherVaults(vault.getId(), generation);
             } catch (Exception e) {
                 handleAsyncError(TAG, "unlockAndLoad failed: " + e.getMessage(), () -> {
                     if (vault.isLocked()) {
@@ -443,9 +471,197 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
         });
     }
 
+    /**
+     * Streams the vault's records, rendering each chunk as soon as it is
+     * parsed. Adds every parsed credential to {@code parsed} and its raw record
+     * to {@code raw} once the stream completes.
+     */
+    private void streamCredentials(VaultHandle handle, int generation, List<CredentialItem> parsed,
+                                   Map<String, Map<String, Object>> raw) throws Exception {
+        handle.listStream("record/", RECORD_CHUNK_SIZE, chunk -> {
+            List<CredentialItem> items = new ArrayList<>();
+            Map<String, Map<String, Object>> chunkRaw = new HashMap<>();
+            appendCredentials(chunk, items, chunkRaw);
+            parsed.addAll(items);
+            raw.putAll(chunkRaw);
+            publishPartialCredentials(generation, items, chunkRaw);
+        }).get();
+    }
+
+    /** Shows a streamed chunk while the rest of the vault is still loading. */
+    private void publishPartialCredentials(int generation, List<CredentialItem> items,
+                                           Map<String, Map<String, Object>> raw) {
+        if (items.isEmpty() || getActivity() == null) return;
+        getActivity().runOnUiThread(() -> {
+            if (generation != loadGeneration) return;
+            rawRecordsById.putAll(raw);
+            boolean replacingPreview = !indexPreviewItems.isEmpty();
+            if (replacingPreview) {
+                allCredentials.removeAll(indexPreviewItems);
+                indexPreviewItems.clear();
+            }
+            allCredentials.addAll(items);
+            // Only switch away from the spinner once something relevant is visible.
+            List<CredentialItem> visible = visibleCredentials(searchInput.getText().toString(), true);
+            if (!visible.isEmpty()) {
+                credentialsAdapter.updateList(visible);
+                showList();
+            } else if (replacingPreview) {
+                credentialsAdapter.updateList(visible);
+                showLoading();
+            }
+        });
+    }
+
+    // --- Other vaults ---
+
+    /**
+     * Adds the page's matches from every other vault that opens without a
+     * prompt, so logins saved in a shared vault show up next to the selected
+     * vault's. Only for autofill of logins, where there is a domain to match.
+     */
+    private void searchOtherVaults(String selectedVaultId, int generation) {
+        if (!MODE_ASSERTION.equals(mode)
+                || !CredentialItem.TYPE_LOGIN.equals(recordTypeFilter)
+                || (webDomain == null && packageName == null)
+                || vaults.size() < 2) {
+            return;
+        }
+        RecordQuery query = pageQuery().type(CredentialItem.TYPE_LOGIN);
+        if (isPasskeyAssertionMode()) {
+            query.passkeysOnly();
+        }
+
+        try {
+            Map<String, List<VaultRecord>> matches = vaultClient.searchAllVaults(query).get();
+            List<Map<String, Object>> records = new ArrayList<>();
+            for (Map.Entry<String, List<VaultRecord>> entry : matches.entrySet()) {
+                if (entry.getKey().equals(selectedVaultId)) continue;
+                for (VaultRecord record : entry.getValue()) {
+                    records.add(record.toMap());
+                }
+            }
+            if (records.isEmpty() || getActivity() == null) return;
+
+            List<CredentialItem> items = new ArrayList<>();
+            appendCredentials(records, items, null);
+            getActivity().runOnUiThread(() -> {
+                if (generation != loadGeneration) return;
+                allCredentials.addAll(items);
+                applyFilter(searchInput.getText().toString());
+            });
+        } catch (Exception e) {
+            SecureLog.e(TAG, "Search across vaults failed: " + e.getMessage());
+        }
+    }
+
+    // --- Credential index ---
+
+    /**
+     * The index only covers login records of vaults without their own password,
+     * so it never reveals a protected vault's contents before it is unlocked.
+     */
+    private boolean usesCredentialIndex(VaultItem vault) {
+        return MODE_ASSERTION.equals(mode)
+                && CredentialItem.TYPE_LOGIN.equals(recordTypeFilter)
+                && !vault.isLocked();
+    }
+
+    /** Shows the vault's indexed records while the vault itself is being opened. */
+    private void showIndexedCredentials(String vaultId, int generation) {
+        if (getActivity() == null) return;
+        CredentialIndex index = new CredentialIndex(getActivity());
+        if (!index.exists()) return;
+
+        byte[] hashedPasswordBytes = null;
+        try {
+            hashedPasswordBytes = readMasterHashedPassword();
+            if (hashedPasswordBytes == null) return;
+
+            List<CredentialItem> items = new ArrayList<>();
+            for (CredentialIndex.Entry entry : index.readEntries(vaultId, hashedPasswordBytes)) {
+                items.add(entry.toCredentialItem());
+            }
+            if (items.isEmpty() || getActivity() == null) return;
+
+            getActivity().runOnUiThread(() -> {
+                // Real records may already have arrived.
+                if (generation != loadGeneration || !allCredentials.isEmpty()) return;
+                indexPreviewItems.addAll(items);
+                allCredentials.addAll(items);
+                List<CredentialItem> visible = visibleCredentials(searchInput.getText().toString(), true);
+                if (!visible.isEmpty()) {
+                    credentialsAdapter.updateList(visible);
+                    showList();
+                }
+            });
+        } catch (Exception e) {
+            SecureLog.e(TAG, "Failed to read credential index: " + e.getMessage());
+        } finally {
+            if (hashedPasswordBytes != null) {
+                JobEncryption.secureZero(hashedPasswordBytes);
+            }
+        }
+    }
+
+    /** Rebuilds the vault's index entries from a full load. */
+    private void updateCredentialIndex(String vaultId, List<CredentialItem> credentials) {
+        if (getActivity() == null) return;
+        CredentialIndex index = new CredentialIndex(getActivity());
+
+        byte[] hashedPasswordBytes = null;
+        try {
+            hashedPasswordBytes = readMasterHashedPassword();
+            if (hashedPasswordBytes == null) return;
+            index.writeEntries(vaultId, CredentialIndex.fromCredentials(credentials), hashedPasswordBytes);
+        } catch (Exception e) {
+            SecureLog.e(TAG, "Failed to update credential index: " + e.getMessage());
+        } finally {
+            if (hashedPasswordBytes != null) {
+                JobEncryption.secureZero(hashedPasswordBytes);
+            }
+        }
+    }
+
+    /**
+     * The master hashedPassword that keys the job file and credential index,
+     * or null if the master vault does not expose one. Callers must zero it.
+     */
+    @Nullable
+    private byte[] readMasterHashedPassword() throws Exception {
+        Map<String, Object> masterEncryptionData = vaultClient.vaultsGet("masterEncryption").get();
+        String hashedPasswordHex = masterEncryptionData != null
+                ? (String) masterEncryptionData.get("hashedPassword") : null;
+        if (hashedPasswordHex == null || hashedPasswordHex.isEmpty()) {
+            return null;
+        }
+        return JobEncryption.hexToBytes(hashedPasswordHex);
+    }
+
     // --- Filtering / display ---
 
     private void applyFilter(String query) {
+        List<CredentialItem> out = visibleCredentials(query, false);
+
+        if (out.isEmpty() && !allCredentials.isEmpty()) {
+            // Search with no matches — still show empty state.
+            credentialsAdapter.updateList(out);
+            showEmpty();
+        } else if (out.isEmpty()) {
+            credentialsAdapter.updateList(out);
+            showEmpty();
+        } else {
+            credentialsAdapter.updateList(out);
+            showList();
+        }
+    }
+
+    /**
+     * Credentials to display for the given query. While records are still
+     * streaming ({@code partial}), the initial domain filter does not fall back
+     * to the full list, since a match may simply not have arrived yet.
+     */
+    private List<CredentialItem> visibleCredentials(String query, boolean partial) {
         List<CredentialItem> out;
         if (!query.isEmpty()) {
             out = new ArrayList<>();
@@ -457,7 +673,7 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
                 }
             }
         } else if (!hasUserSearched) {
-            out = filterInitial(allCredentials);
+            out = filterInitial(allCredentials, partial);
         } else {
             out = new ArrayList<>(allCredentials);
         }
@@ -470,63 +686,46 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
             }
             out = passkeysOnly;
         }
-
-        if (out.isEmpty() && !allCredentials.isEmpty()) {
-            // Search with no matches — still show empty state.
-            credentialsAdapter.updateList(out);
-            showEmpty();
-        } else if (out.isEmpty()) {
-            credentialsAdapter.updateList(out);
-            showEmpty();
-        } else {
-            credentialsAdapter.updateList(out);
-            showList();
-        }
+        return out;
     }
 
-    private List<CredentialItem> filterInitial(List<CredentialItem> all) {
+    private List<CredentialItem> filterInitial(List<CredentialItem> all, boolean partial) {
         // Credit cards don't carry a website list, so they aren't domain-filterable.
         if (CredentialItem.TYPE_CREDIT_CARD.equals(recordTypeFilter)) {
             return new ArrayList<>(all);
         }
         // In registration mode, prefer records matching rpId/userName; else fall through.
         if (MODE_REGISTRATION.equals(mode) && rpId != null && !rpId.isEmpty()) {
-            List<CredentialItem> matches = new ArrayList<>();
-            String rp = rpId.toLowerCase(Locale.ROOT);
-            String un = userName != null ? userName.toLowerCase(Locale.ROOT) : "";
-            for (CredentialItem c : all) {
-                if (c.getWebsites() != null) {
-                    for (String w : c.getWebsites()) {
-                        if (w != null && w.toLowerCase(Locale.ROOT).contains(rp)) {
-                            matches.add(c);
-                            break;
-                        }
-                    }
-                }
-            }
-            return matches.isEmpty() ? new ArrayList<>(all) : matches;
+            return filterBySite(all, new RecordQuery().rpId(rpId), partial);
         }
         // Autofill: domain/package filter
         if (webDomain != null || packageName != null) {
-            List<CredentialItem> matches = new ArrayList<>();
-            String target = webDomain != null ? extractDomain(webDomain) : null;
-            String pkgDomain = packageName != null ? convertPackageToDomain(packageName) : null;
-            for (CredentialItem c : all) {
-                if (c.getWebsites() == null) continue;
-                for (String w : c.getWebsites()) {
-                    String d = extractDomain(w);
-                    if ((target != null && domainsMatch(target, d)) ||
-                        (pkgDomain != null && domainsMatch(pkgDomain, d))) {
-                        matches.add(c);
-                        break;
-                    }
-                }
-            }
-            return matches.isEmpty() ? new ArrayList<>(all) : matches;
+            return filterBySite(all, pageQuery(), partial);
         }
         return new ArrayList<>(all);
     }
 
+    private List<CredentialItem> filterBySite(List<CredentialItem> all, RecordQuery query, boolean partial) {
+        List<CredentialItem> matches = new ArrayList<>();
+        PublicSuffixList suffixes = PublicSuffixList.get(requireContext());
+        for (CredentialItem c : all) {
+            if (query.matchesWebsites(c.getWebsites(), suffixes)) {
+                matches.add(c);
+            }
+        }
+        return matches.isEmpty() && !partial ? new ArrayList<>(all) : matches;
+    }
+
+    /**
+     * Matches the page being filled. For a passkey the web domain is the rpId,
+     * and only sites within its scope qualify; passwords are offered for the
+     * whole registrable domain.
+     */
+    private RecordQuery pageQuery() {
+        RecordQuery query = new RecordQuery().packageName(packageName);
+        return isPasskeyAssertionMode() ? query.rpId(webDomain) : query.domain(webDomain);
+    }
+
     private void handleCredentialClick(CredentialItem c) {
         if (MODE_REGISTRATION.equals(mode)) {
             Map<String, Object> raw = rawRecordsById.get(c.getId());
@@ -549,6 +748,11 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
         }
         // Assertion
         if (navigationListener == null) return;
+        if (indexPreviewItems.contains(c)) {
+            // Index entries carry no secrets; wait for the vault record.
+            Toast.makeText(requireContext(), "Still loading, please wait", Toast.LENGTH_SHORT).show();
+            return;
+        }
         boolean passkeyMode = false;
         if (getActivity() instanceof AuthenticationActivity) {
             passkeyMode = ((AuthenticationActivity) getActivity()).isPasskeyAssertionMode();
@@ -638,11 +842,13 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
 
     // --- Records parsing (mirror of V1 CredentialsListFragment.parseCredentials) ---
 
+    /**
+     * @param raw Receives the raw record of every credential, by id, for
+     *            selection; null for records of vaults other than the selected one
+     */
     @SuppressWarnings("unchecked")
-    private List<CredentialItem> parseCredentials(List<Map<String, Object>> records) {
-        List<CredentialItem> credentials = new ArrayList<>();
-        rawRecordsById.clear();
-
+    private void appendCredentials(List<Map<String, Object>> records, List<CredentialItem> credentials,
+                                   @Nullable Map<String, Map<String, Object>> raw) {
         for (Map<String, Object> record : records) {
             String id = (String) record.get("id");
             if (id == null) continue;
@@ -675,7 +881,7 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
                 cardItem.setCardSecurityCode((String) data.get("securityCode"));
                 cardItem.setCardholderName((String) data.get("name"));
                 credentials.add(cardItem);
-                rawRecordsById.put(id, record);
+                if (raw != null) raw.put(id, record);
                 continue;
             }
 
@@ -715,31 +921,8 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
             credentials.add(new CredentialItem(id, name, uname, pwd, websites,
                     hasPasskey, passkeyCreatedAt, credentialMap, privateKeyBuffer, userIdStr, credentialId));
 
-            rawRecordsById.put(id, record);
+            if (raw != null) raw.put(id, record);
         }
-        return credentials;
-    }
-
-    // --- Domain helpers (mirror of V1) ---
-
-    private String extractDomain(String url) {
-        if (url == null || url.isEmpty()) return "";
-        String d = url.toLowerCase(Locale.ROOT);
-        if (d.startsWith("https://")) d = d.substring(8);
-        else if (d.startsWith("http://")) d = d.substring(7);
-        int slash = d.indexOf('/');
-        if (slash != -1) d = d.substring(0, slash);
-        int colon = d.indexOf(':');
-        if (colon != -1) d = d.substring(0, colon);
-        if (d.startsWith("www.")) d = d.substring(4);
-        return d;
-    }
-
-    private String convertPackageToDomain(String pkg) {
-        if (pkg == null || pkg.isEmpty()) return null;
-        String[] parts = pkg.split("\\.");
-        if (parts.length < 2) return pkg;
-        return parts[1] + "." + parts[0];
     }
 
     private boolean isPasskeyAssertionMode() {
@@ -747,20 +930,6 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
                 && ((AuthenticationActivity) getActivity()).isPasskeyAssertionMode();
     }
 
-    private boolean domainsMatch(String a, String b) {
-        if (a == null || b == null) return false;
-        if (a.equals(b)) return true;
-        if (a.endsWith("." + b) || b.endsWith("." + a)) return true;
-        String[] ap = a.split("\\.");
-        String[] bp = b.split("\\.");
-        if (ap.length >= 2 && bp.length >= 2) {
-            String am = ap[ap.length - 2] + "." + ap[ap.length - 1];
-            String bm = bp[bp.length - 2] + "." + bp[bp.length - 1];
-            return am.equals(bm);
-        }
-        return false;
-    }
-
     /** Surfaces pending ADD/UPDATE passkey jobs scoped to the current vault. */
     @SuppressWarnings("unchecked")
     private List<CredentialItem> loadPendingPasskeysFromJobs(List<CredentialItem> existingCredentials, String currentVaultId) {
@@ -777,13 +946,11 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
 
         byte[] hashedPasswordBytes = null;
         try {
-            Map<String, Object> masterEncryptionData = vaultClient.vaultsGet("masterEncryption").get();
-            String hashedPasswordHex = (String) masterEncryptionData.get("hashedPassword");
-            if (hashedPasswordHex == null || hashedPasswordHex.isEmpty()) {
+            hashedPasswordBytes = readMasterHashedPassword();
+            if (hashedPasswordBytes == null) {
                 SecureLog.d(TAG, "No hashed password available for job file decryption");
                 return pendingPasskeys;
             }
-            hashedPasswordBytes = JobEncryption.hexToBytes(hashedPasswordHex);
 
             Set<String> existingPasskeyIds = new HashSet<>();
             for (CredentialItem item : existingCredentials) {
@@ -792,6 +959,11 @@ public class CombinedItemsFragment extends BaseAutofillFragment {
                 }
             }
 
+            // Cheap index check before decrypting every queued job
+            if (!jobFileManager.hasPendingJobs(currentVaultId, hashedPasswordBytes)) {
+                return pendingPasskeys;
+            }
+
             List<Job> jobs = jobFileManager.readJobs(hashedPasswordBytes);
 
             for (Job job : jobs) {
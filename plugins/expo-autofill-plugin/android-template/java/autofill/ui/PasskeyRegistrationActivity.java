@@ -22,8 +22,10 @@ import com.pears.pass.autofill.data.PasskeyCredential;
 import com.pears.pass.autofill.data.PasskeyFormData;
 import com.pears.pass.autofill.data.PasskeyResponse;
 import com.pears.pass.autofill.data.PearPassVaultClient;
+import com.pears.pass.autofill.data.VaultClientPool;
 import com.pears.pass.autofill.jobs.AddPasskeyPayload;
 import com.pears.pass.autofill.jobs.Job;
+import com.pears.pass.autofill.jobs.JobBatch;
 import com.pears.pass.autofill.jobs.JobEncryption;
 import com.pears.pass.autofill.jobs.JobFileManager;
 import com.pears.pass.autofill.jobs.PasskeyJobCreator;
@@ -80,6 +82,10 @@ public class PasskeyRegistrationActivity extends AppCompatActivity implements Na
     private String selectedVaultId;
     private String selectedVaultName;
     private byte[] selectedVaultPasswordBuffer;  // Stored as byte[] for secure handling
+    // Passwords of the vaults unlocked in the v2 picker, by vault id. Switching back to one
+    // of them reuses the client's cached key and passes no password, but re-opening it on
+    // resume needs the password again because releasing the client drops the key cache.
+    private final Map<String, byte[]> unlockedVaultPasswordBuffers = new HashMap<>();
     private Map<String, Object> selectedExistingRecord;
     private List<String> preloadedFolders = new ArrayList<>();
     private PasskeyCredential generatedCredential;
@@ -164,7 +170,7 @@ public class PasskeyRegistrationActivity extends AppCompatActivity implements Na
         if (vaultClient != null) return;
 
         // readOnly=true — all writes go through the encrypted job queue
-        vaultClient = new PearPassVaultClient(this, null, true, true);
+        vaultClient = VaultClientPool.acquire(this, true, true);
 
         VaultInitializer.initialize(vaultClient, new VaultInitializer.Callback() {
             @Override
@@ -230,13 +236,20 @@ public class PasskeyRegistrationActivity extends AppCompatActivity implements Na
 
     // Called from CombinedItemsFragment after the user picks a vault.
     // Mirrors what v1 did over two screens (vault select + vault password prompt).
-    public void onV2VaultReady(String vaultId, byte[] passwordBuffer) {
+    // A null passwordBuffer means the vault was opened without a password (unprotected, or
+    // with the client's cached key); in the latter case the password from the earlier unlock
+    // is kept for re-opening the vault on resume.
+    public synchronized void onV2VaultReady(String vaultId, byte[] passwordBuffer) {
         this.selectedVaultId = vaultId;
         clearSelectedVaultPasswordBuffer();
         if (passwordBuffer != null) {
-            this.selectedVaultPasswordBuffer = new byte[passwordBuffer.length];
-            System.arraycopy(passwordBuffer, 0, this.selectedVaultPasswordBuffer, 0, passwordBuffer.length);
-            com.pears.pass.autofill.utils.SecureBufferUtils.clearBuffer(passwordBuffer);
+            com.pears.pass.autofill.utils.SecureBufferUtils.clearBuffer(
+                    unlockedVaultPasswordBuffers.put(vaultId, passwordBuffer));
+        }
+        byte[] password = unlockedVaultPasswordBuffers.get(vaultId);
+        if (password != null) {
+            this.selectedVaultPasswordBuffer = new byte[password.length];
+            System.arraycopy(password, 0, this.selectedVaultPasswordBuffer, 0, password.length);
         }
         this.vaultReadyFuture = CompletableFuture.completedFuture(true);
     }
@@ -372,23 +385,8 @@ public class PasskeyRegistrationActivity extends AppCompatActivity implements Na
 
         CompletableFuture.runAsync(() -> {
             try {
-                // Close any active vault first
-                try {
-                    vaultClient.activeVaultClose().get();
-                } catch (Exception e) {
-                    SecureLog.d(TAG, "No active vault to close: " + e.getMessage());
-                }
-
-                // Activate the vault using byte[] password
-                boolean success;
-                if (passwordBuffer != null) {
-                    success = vaultClient.getVaultById(vaultId, passwordBuffer).get();
-                } else {
-                    success = vaultClient.getVaultById(vaultId, (String) null).get();
-                }
-                if (!success) {
-                    throw new RuntimeException("Failed to activate vault");
-                }
+                // Activate the vault using byte[] password; fails if it cannot be opened
+                vaultClient.openVault(vaultId, passwordBuffer).get();
 
                 // Mark vault as ready
                 vaultReadyFuture = CompletableFuture.completedFuture(true);
@@ -459,6 +457,11 @@ public class PasskeyRegistrationActivity extends AppCompatActivity implements Na
             }
             hashedPasswordBytes = JobEncryption.hexToBytes(hashedPasswordHex);
 
+            // Cheap index check before decrypting every queued job
+            if (!jobFileManager.hasPendingJobs(null, hashedPasswordBytes)) {
+                return pendingRecords;
+            }
+
             List<Job> jobs = jobFileManager.readJobs(hashedPasswordBytes);
             String passkeyUsername = userName != null ? userName.trim() : "";
 
@@ -635,6 +638,7 @@ public class PasskeyRegistrationActivity extends AppCompatActivity implements Na
                 // 3. Create job via PasskeyJobCreator (deferred write to main app)
                 JobFileManager jobFileManager = new JobFileManager(this);
                 PasskeyJobCreator jobCreator = new PasskeyJobCreator(jobFileManager);
+                JobBatch batch = new JobBatch(jobFileManager);
 
                 if (selectedExistingRecord != null && formData.getExistingRecordId() != null) {
                     String existingRecordId = formData.getExistingRecordId();
@@ -647,47 +651,44 @@ public class PasskeyRegistrationActivity extends AppCompatActivity implements Na
                         SecureLog.e(TAG, "Failed to check pending job status: " + e.getMessage());
                     }
 
-                    // Remove any old pending jobs for this record before creating the replacement
-                    try {
-                        jobFileManager.removeJobsForRecord(existingRecordId, hashedPasswordBytes);
-                    } catch (Exception e) {
-                        SecureLog.e(TAG, "Failed to remove old pending jobs: " + e.getMessage());
-                    }
+                    // Old pending jobs for this record are replaced in the same queue write
+                    batch.removeJobsForRecord(existingRecordId);
 
                     if (isPendingAdd) {
                         // Record only exists as a pending ADD job — create a new ADD_PASSKEY
                         // with the updated passkey (not UPDATE, since the record isn't in the DB)
                         jobCreator.createAddPasskeyJob(
+                                batch,
                                 selectedVaultId,
                                 credential,
                                 formData,
                                 rpId, rpName,
-                                Base64URLUtils.encode(userId), userName, userDisplayName,
-                                hashedPasswordBytes
+                                Base64URLUtils.encode(userId), userName, userDisplayName
                         );
                     } else {
                         // Update existing vault record with passkey
                         jobCreator.createUpdatePasskeyJob(
+                                batch,
                                 selectedVaultId,
                                 existingRecordId,
                                 credential,
                                 formData,
                                 rpId, rpName,
-                                Base64URLUtils.encode(userId), userName, userDisplayName,
-                                hashedPasswordBytes
+                                Base64URLUtils.encode(userId), userName, userDisplayName
                         );
                     }
                 } else {
                     // Create new record with passkey
                     jobCreator.createAddPasskeyJob(
+                            batch,
                             selectedVaultId,
                             credential,
                             formData,
                             rpId, rpName,
-                            Base64URLUtils.encode(userId), userName, userDisplayName,
-                            hashedPasswordBytes
+                            Base64URLUtils.encode(userId), userName, userDisplayName
                     );
                 }
+                batch.commit(hashedPasswordBytes);
 
                 // 4. Build response and return immediately
                 this.generatedCredential = credential;
@@ -809,7 +810,7 @@ public class PasskeyRegistrationActivity extends AppCompatActivity implements Na
             if (current instanceof PasskeyFormFragment || current instanceof ExistingCredentialSelectionFragment) {
                 // User was on a form - reinitialize vault silently, keep current fragment
                 SecureLog.d(TAG, "Resuming with form visible, reinitializing vault client silently");
-                vaultClient = new PearPassVaultClient(this, null, true, true);
+                vaultClient = VaultClientPool.acquire(this, true, true);
 
                 // Create a future that will be completed when the vault is ready
                 final CompletableFuture<Boolean> readyFuture = new CompletableFuture<>();
@@ -835,10 +836,11 @@ public class PasskeyRegistrationActivity extends AppCompatActivity implements Na
                         if (selectedVaultId != null) {
                             SecureLog.d(TAG, "Re-opening active vault: " + selectedVaultId);
                             boolean success;
-                            if (selectedVaultPasswordBuffer != null) {
-                                success = vaultClient.getVaultById(selectedVaultId, selectedVaultPasswordBuffer).get();
-                            } else {
-                                success = vaultClient.getVaultById(selectedVaultId, (String) null).get();
+                            try {
+                                vaultClient.openVault(selectedVaultId, selectedVaultPasswordBuffer).get();
+                                success = true;
+                            } catch (Exception e) {
+                                success = false;
                             }
                             if (success) {
                                 SecureLog.d(TAG, "Active vault re-opened successfully");
@@ -883,11 +885,7 @@ public class PasskeyRegistrationActivity extends AppCompatActivity implements Na
         if (vaultClient == null) return;
         final PearPassVaultClient client = vaultClient;
         vaultClient = null;
-        try {
-            client.closeAllInstances().get(500, java.util.concurrent.TimeUnit.MILLISECONDS);
-        } catch (Exception e) {
-            SecureLog.w(TAG, "Error during cleanup: " + e.getMessage());
-        }
+        VaultClientPool.release(client);
     }
 
     /**
@@ -898,5 +896,11 @@ public class PasskeyRegistrationActivity extends AppCompatActivity implements Na
         storedNonce = null;
         storedHashedPassword = null;
         clearSelectedVaultPasswordBuffer();
+        synchronized (this) {
+            for (byte[] password : unlockedVaultPasswordBuffers.values()) {
+                com.pears.pass.autofill.utils.SecureBufferUtils.clearBuffer(password);
+            }
+            unlockedVaultPasswordBuffers.clear();
+        }
     }
 }
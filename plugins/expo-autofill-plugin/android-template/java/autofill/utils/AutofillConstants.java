@@ -29,4 +29,11 @@ public final class AutofillConstants {
      * The autofill service class name as declared in AndroidManifest.xml
      */
     public static final String AUTOFILL_SERVICE_CLASS = ".autofill.service.PearPassAutofillService";
+
+    /**
+     * Start the worklet from a memory-mapped copy of the bundle in the code cache
+     * instead of streaming it out of the (compressed) APK assets on every launch.
+     * Falls back to the asset stream if the copy or mapping fails.
+     */
+    public static final boolean MAP_WORKLET_BUNDLE = false;
 }
@@ -0,0 +1,444 @@
+package com.pears.pass.autofill.utils;
+
+import android.content.Context;
+
+import com.pears.pass.R;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+/**
+ * Registrable-domain (eTLD+1) lookups against the Public Suffix List, so that
+ * e.g. login.example.co.uk and www.example.co.uk are treated as one site
+ * while foo.co.uk and bar.co.uk are not.
+ *
+ * The list ships as res/raw/public_suffixes.bin, a trie of reversed labels
+ * compiled by scripts/build-public-suffixes.cjs. It is loaded once per process
+ * and queried in place: lookups binary search the serialized nodes and work on
+ * offsets into the input, so matching allocates nothing.
+ *
+ * Usage:
+ * <pre>
+ *   PublicSuffixList suffixes = PublicSuffixList.get(context);
+ *   suffixes.sameRegistrableDomain("https://login.example.co.uk/path", "example.co.uk"); // true
+ *   suffixes.sameRpIdScope("https://login.example.com", "example.com"); // true
+ *   int start = suffixes.registrableDomain("www.example.co.uk"); // 4
+ * </pre>
+ *
+ * Thread-safe.
+ */
+public final class PublicSuffixList {
+    private static final String TAG = "PublicSuffixList";
+
+    // Layout written by scripts/build-public-suffixes.cjs (big-endian):
+    // header "PPSL", u16 version, u16 reserved, u32 nodeCount, u32 labelPoolLength;
+    // nodes { u32 labelOffset, u8 labelLength, u8 flags, u16 childCount, u32 firstChild };
+    // then the label pool.
+    private static final int MAGIC = 0x5050534C; // "PPSL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int NODE_SIZE = 12;
+
+    private static final int FLAG_RULE = 0x1;      // "a.b"
+    private static final int FLAG_WILDCARD = 0x2;  // "*.a.b": every child is a suffix
+    private static final int FLAG_EXCEPTION = 0x4; // "!a.b": not a suffix, its parent is
+
+    private static final int ROOT = 0;
+
+    private static volatile PublicSuffixList instance;
+
+    private final byte[] trie;
+    private final int nodeCount;
+    private final int labelPool;
+
+    /**
+     * @return The process-wide list, loaded on first use. If the asset can't be
+     *         read, a list holding only the default rule ("*") is returned, which
+     *         treats the last label of every host as its public suffix.
+     */
+    public static PublicSuffixList get(Context context) {
+        PublicSuffixList list = instance;
+        if (list == null) {
+            synchronized (PublicSuffixList.class) {
+                list = instance;
+                if (list == null) {
+                    list = load(context.getApplicationContext());
+                    instance = list;
+                }
+            }
+        }
+        return list;
+    }
+
+    private static PublicSuffixList load(Context context) {
+        long startedAt = System.nanoTime();
+        try (InputStream in = context.getResources().openRawResource(R.raw.public_suffixes)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(in.available());
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            PublicSuffixList list = new PublicSuffixList(out.toByteArray());
+            SecureLog.d(TAG, "Loaded " + list.nodeCount + " public suffix nodes in "
+                    + (System.nanoTime() - startedAt) / 1_000_000 + "ms");
+            return list;
+        } catch (Exception e) {
+            SecureLog.e(TAG, "Failed to load public suffixes, using the default rule only: " + e.getMessage());
+            return new PublicSuffixList(defaultRuleOnly());
+        }
+    }
+
+    /**
+     * A trie with just the root node.
+     */
+    private static byte[] defaultRuleOnly() {
+        byte[] trie = new byte[HEADER_SIZE + NODE_SIZE];
+        writeInt(trie, 0, MAGIC);
+        trie[4] = (byte) (VERSION >>> 8);
+        trie[5] = (byte) VERSION;
+        writeInt(trie, 8, 1);
+        writeInt(trie, HEADER_SIZE + 8, 1);
+        return trie;
+    }
+
+    private static void writeInt(byte[] b, int at, int value) {
+        b[at] = (byte) (value >>> 24);
+        b[at + 1] = (byte) (value >>> 16);
+        b[at + 2] = (byte) (value >>> 8);
+        b[at + 3] = (byte) value;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code trie} is not a valid compiled list
+     */
+    PublicSuffixList(byte[] trie) {
+        if (trie.length < HEADER_SIZE || readInt(trie, 0) != MAGIC) {
+            throw new IllegalArgumentException("Not a public suffix trie");
+        }
+        int version = ((trie[4] & 0xFF) << 8) | (trie[5] & 0xFF);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported public suffix trie version: " + version);
+        }
+
+        int nodes = readInt(trie, 8);
+        int poolLength = readInt(trie, 12);
+        if (nodes < 1 || poolLength < 0
+                || (long) HEADER_SIZE + (long) nodes * NODE_SIZE + poolLength != trie.length) {
+            throw new IllegalArgumentException("Truncated public suffix trie");
+        }
+
+        this.trie = trie;
+        this.nodeCount = nodes;
+        this.labelPool = HEADER_SIZE + nodes * NODE_SIZE;
+
+        // Check every offset once, so lookups can't run off the end
+        for (int node = 0; node < nodes; node++) {
+            if ((long) labelOffset(node) + labelLength(node) > poolLength
+                    || (long) firstChild(node) + childCount(node) > nodes) {
+                throw new IllegalArgumentException("Corrupt public suffix trie node " + node);
+            }
+        }
+    }
+
+    /**
+     * @return The offset in {@code host} where its registrable domain starts (it
+     *         runs to the end of the host), or -1 if the host has none: it is
+     *         empty, an IP address, or itself a public suffix
+     */
+    public int registrableDomain(CharSequence host) {
+        return host != null ? registrableDomain(host, 0, host.length()) : -1;
+    }
+
+    /**
+     * Like {@link #registrableDomain(CharSequence)} for the host in
+     * {@code s[start, end)}. Labels are matched case-insensitively.
+     */
+    public int registrableDomain(CharSequence s, int start, int end) {
+        if (end > start && s.charAt(end - 1) == '.') {
+            end--;
+        }
+        if (start >= end || isIpAddress(s, start, end)) {
+            return -1;
+        }
+
+        int suffixStart = -1;
+        int node = ROOT;
+        int labelEnd = end;
+        while (labelEnd > start) {
+            int labelStart = lastIndexOf(s, '.', start, labelEnd) + 1;
+            if (labelStart == labelEnd) {
+                return -1; // Empty label
+            }
+
+            int child = findChild(node, s, labelStart, labelEnd);
+            if (child >= 0 && (flags(child) & FLAG_EXCEPTION) != 0) {
+                // The exception itself is the registrable domain
+                return labelStart;
+            }
+            if (node == ROOT // Default rule: the last label is always a suffix
+                    || (flags(node) & FLAG_WILDCARD) != 0
+                    || (child >= 0 && (flags(child) & FLAG_RULE) != 0)) {
+                suffixStart = labelStart;
+            }
+            if (child < 0) {
+                break;
+            }
+            node = child;
+            labelEnd = labelStart - 1;
+        }
+
+        if (suffixStart <= start) {
+            return -1;
+        }
+        int registrableStart = lastIndexOf(s, '.', start, suffixStart - 1) + 1;
+        return registrableStart < suffixStart - 1 ? registrableStart : -1;
+    }
+
+    /**
+     * Whether two URLs, hosts, or rpIds belong to the same site: their hosts
+     * have the same registrable domain, or are equal when either has none (IP
+     * addresses, public suffixes). Scheme, userinfo, port, path, and letter
+     * case are ignored.
+     */
+    public boolean sameRegistrableDomain(CharSequence a, CharSequence b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        int aStart = hostStart(a);
+        int aEnd = hostEnd(a, aStart);
+        int bStart = hostStart(b);
+        int bEnd = hostEnd(b, bStart);
+        if (aStart >= aEnd || bStart >= bEnd) {
+            return false;
+        }
+
+        int aSite = registrableDomain(a, aStart, aEnd);
+        int bSite = registrableDomain(b, bStart, bEnd);
+        return regionEqualsIgnoreCase(a, aSite >= 0 ? aSite : aStart, aEnd,
+                b, bSite >= 0 ? bSite : bStart, bEnd);
+    }
+
+    /**
+     * Whether a URL or host and a WebAuthn rpId are within each other's scope:
+     * their hosts are equal, or one is a subdomain of the other. This is the
+     * scope passkeys are bound to, which can be narrower than the registrable
+     * domain. The parent must have a registrable domain, so a public suffix or
+     * IP address never covers other hosts. Scheme, userinfo, port, path, and
+     * letter case are ignored.
+     */
+    public boolean sameRpIdScope(CharSequence a, CharSequence b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        int aStart = hostStart(a);
+        int aEnd = hostEnd(a, aStart);
+        int bStart = hostStart(b);
+        int bEnd = hostEnd(b, bStart);
+        if (aStart >= aEnd || bStart >= bEnd) {
+            return false;
+        }
+
+        int aLength = aEnd - aStart;
+        int bLength = bEnd - bStart;
+        if (aLength == bLength) {
+            return regionEqualsIgnoreCase(a, aStart, aEnd, b, bStart, bEnd);
+        }
+        if (aLength < bLength) {
+            return isSubdomain(b, bStart, bEnd, a, aStart, aEnd);
+        }
+        return isSubdomain(a, aStart, aEnd, b, bStart, bEnd);
+    }
+
+    private boolean isSubdomain(CharSequence child, int childStart, int childEnd,
+                                CharSequence parent, int parentStart, int parentEnd) {
+        int suffixStart = childEnd - (parentEnd - parentStart);
+        return child.charAt(suffixStart - 1) == '.'
+                && regionEqualsIgnoreCase(child, suffixStart, childEnd, parent, parentStart, parentEnd)
+                && registrableDomain(parent, parentStart, parentEnd) >= 0;
+    }
+
+    // --- Trie access ---
+
+    private int findChild(int node, CharSequence s, int labelStart, int labelEnd) {
+        int low = firstChild(node);
+        int high = low + childCount(node) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareLabel(mid, s, labelStart, labelEnd);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compare a node's label with {@code s[start, end)}, lower-casing ASCII
+     * letters of {@code s}. Non-ASCII characters sort after every stored
+     * (punycode) label, so they never match.
+     */
+    private int compareLabel(int node, CharSequence s, int start, int end) {
+        int offset = labelPool + labelOffset(node);
+        int length = labelLength(node);
+        int inputLength = end - start;
+        int n = Math.min(length, inputLength);
+        for (int i = 0; i < n; i++) {
+            int diff = (trie[offset + i] & 0xFF) - toLowerAscii(s.charAt(start + i));
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - inputLength;
+    }
+
+    private int nodeAt(int node) {
+        return HEADER_SIZE + node * NODE_SIZE;
+    }
+
+    private int labelOffset(int node) {
+        return readInt(trie, nodeAt(node));
+    }
+
+    private int labelLength(int node) {
+        return trie[nodeAt(node) + 4] & 0xFF;
+    }
+
+    private int flags(int node) {
+        return trie[nodeAt(node) + 5] & 0xFF;
+    }
+
+    private int childCount(int node) {
+        int at = nodeAt(node) + 6;
+        return ((trie[at] & 0xFF) << 8) | (trie[at + 1] & 0xFF);
+    }
+
+    private int firstChild(int node) {
+        return readInt(trie, nodeAt(node) + 8);
+    }
+
+    private static int readInt(byte[] b, int at) {
+        return ((b[at] & 0xFF) << 24) | ((b[at + 1] & 0xFF) << 16)
+                | ((b[at + 2] & 0xFF) << 8) | (b[at + 3] & 0xFF);
+    }
+
+    // --- Host parsing ---
+
+    /**
+     * Start of the host in a URL, host, or rpId: after the scheme and userinfo.
+     */
+    private static int hostStart(CharSequence s) {
+        int length = s.length();
+        int start = 0;
+        while (start < length && Character.isWhitespace(s.charAt(start))) {
+            start++;
+        }
+
+        // Skip "scheme://" (or a scheme-relative "//")
+        for (int i = start; i < length; i++) {
+            char c = s.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                if (c == '/' && i == start && i + 1 < length && s.charAt(i + 1) == '/') {
+                    start = i + 2;
+                }
+                break;
+            }
+            if (c == ':') {
+                if (i + 2 < length && s.charAt(i + 1) == '/' && s.charAt(i + 2) == '/') {
+                    start = i + 3;
+                }
+                break;
+            }
+        }
+
+        // Skip "user:password@"
+        for (int i = start; i < length; i++) {
+            char c = s.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            if (c == '@') {
+                start = i + 1;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * End of the host starting at {@code start}: before the port, path, query,
+     * or fragment, without a trailing dot.
+     */
+    private static int hostEnd(CharSequence s, int start) {
+        int length = s.length();
+        int end = start;
+        if (start < length && s.charAt(start) == '[') {
+            // IPv6 literal
+            while (end < length && s.charAt(end) != ']') {
+                end++;
+            }
+            return Math.min(end + 1, length);
+        }
+        while (end < length) {
+            char c = s.charAt(end);
+            if (c == ':' || c == '/' || c == '?' || c == '#' || Character.isWhitespace(c)) {
+                break;
+            }
+            end++;
+        }
+        if (end > start && s.charAt(end - 1) == '.') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * IPv6 literals contain ':' or '['; IPv4 addresses end in an all-digit
+     * label, which no top-level domain does.
+     */
+    private static boolean isIpAddress(CharSequence s, int start, int end) {
+        boolean digitsOnly = true;
+        for (int i = end - 1; i >= start; i--) {
+            char c = s.charAt(i);
+            if (c == ':' || c == '[') {
+                return true;
+            }
+            if (c == '.') {
+                break;
+            }
+            if (c < '0' || c > '9') {
+                digitsOnly = false;
+            }
+        }
+        return digitsOnly;
+    }
+
+    private static int lastIndexOf(CharSequence s, char c, int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return start - 1;
+    }
+
+    private static int toLowerAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    private static boolean regionEqualsIgnoreCase(CharSequence a, int aStart, int aEnd,
+                                                  CharSequence b, int bStart, int bEnd) {
+        if (aEnd - aStart != bEnd - bStart) {
+            return false;
+        }
+        for (int i = 0; i < aEnd - aStart; i++) {
+            if (toLowerAscii(a.charAt(aStart + i)) != toLowerAscii(b.charAt(bStart + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -4,6 +4,8 @@ import android.util.Log;
 
 import com.pears.pass.BuildConfig;
 
+import java.util.function.Supplier;
+
 /**
  * Secure logging utility that only outputs logs in debug builds.
  *
@@ -15,6 +17,8 @@ import com.pears.pass.BuildConfig;
  * - SecureLog.e(TAG, "message") - Error logs (always logged, but sanitized)
  * - SecureLog.w(TAG, "message") - Warning logs (stripped in release)
  * - SecureLog.i(TAG, "message") - Info logs (stripped in release)
+ * - SecureLog.d(TAG, () -> "message " + payload) - Debug logs whose message is
+ *   only built in debug builds; use when the message stringifies a payload
  */
 public final class SecureLog {
 
@@ -54,6 +58,19 @@ public final class SecureLog {
         }
     }
 
+    /**
+     * Log a debug message built by {@code message}. Only logs in debug builds,
+     * and the message is never built in release builds.
+     *
+     * @param tag The log tag
+     * @param message Builds the message to log
+     */
+    public static void d(String tag, Supplier<String> message) {
+        if (IS_DEBUG) {
+            Log.d(tag, message.get());
+        }
+    }
+
     /**
      * Log an info message. Only logs in debug builds.
      *
@@ -78,6 +95,19 @@ public final class SecureLog {
         }
     }
 
+    /**
+     * Log a warning message built by {@code message}. Only logs in debug builds,
+     * and the message is never built in release builds.
+     *
+     * @param tag The log tag
+     * @param message Builds the message to log
+     */
+    public static void w(String tag, Supplier<String> message) {
+        if (IS_DEBUG) {
+            Log.w(tag, message.get());
+        }
+    }
+
     /**
      * Log a warning message with throwable. Only logs in debug builds.
      *
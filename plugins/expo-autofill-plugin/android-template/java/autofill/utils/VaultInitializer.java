@@ -86,13 +86,16 @@ public class VaultInitializer {
     public static CompletableFuture<VaultInitState> initializeUser(PearPassVaultClient client) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                // Get vault status and active vault status
-                PearPassVaultClient.VaultStatus vaultsStatus = client.vaultsGetStatus().get();
-                PearPassVaultClient.VaultStatus activeVaultStatus = client.activeVaultGetStatus().get();
+                // Queue both status requests up front so the second is sent as
+                // soon as the first reply arrives
+                CompletableFuture<PearPassVaultClient.VaultStatus> vaultsStatusFuture = client.vaultsGetStatus();
+                CompletableFuture<PearPassVaultClient.VaultStatus> activeVaultStatusFuture = client.activeVaultGetStatus();
+                PearPassVaultClient.VaultStatus vaultsStatus = vaultsStatusFuture.get();
 
                 // Get master password encryption
                 PearPassVaultClient.MasterPasswordEncryption encryption =
                         client.getMasterPasswordEncryption(vaultsStatus).get();
+                PearPassVaultClient.VaultStatus activeVaultStatus = activeVaultStatusFuture.get();
 
                 // Check if password is set
                 boolean hasPasswordSet = encryption != null &&
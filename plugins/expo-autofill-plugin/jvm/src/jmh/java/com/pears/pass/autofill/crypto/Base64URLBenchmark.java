@@ -0,0 +1,46 @@
+package com.pears.pass.autofill.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base64URL round trips at credential ID ({@code 16}), key ({@code 138}), and
+ * attestation object ({@code 1024}) sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class Base64URLBenchmark {
+
+    @Param({"16", "138", "1024"})
+    public int size;
+
+    private byte[] data;
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        data = new byte[size];
+        new Random(size).nextBytes(data);
+        encoded = Base64URLUtils.encode(data);
+    }
+
+    @Benchmark
+    public String encode() {
+        return Base64URLUtils.encode(data);
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return Base64URLUtils.decode(encoded);
+    }
+}
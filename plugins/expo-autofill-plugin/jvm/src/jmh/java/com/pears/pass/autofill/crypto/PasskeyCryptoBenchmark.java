@@ -0,0 +1,69 @@
+package com.pears.pass.autofill.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The passkey registration and assertion steps run while the autofill sheet
+ * is open: building authenticator data, importing the stored key, signing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PasskeyCryptoBenchmark {
+
+    private static final String RP_ID = "login.example.co.uk";
+
+    private KeyPair keyPair;
+    private byte[] credentialId;
+    private String privateKeyPkcs8;
+    private PrivateKey privateKey;
+    private byte[] authData;
+    private byte[] clientDataHash;
+
+    @Setup
+    public void setUp() throws Exception {
+        keyPair = PasskeyCrypto.generateKeyPair();
+        credentialId = PasskeyCrypto.generateCredentialId();
+        privateKeyPkcs8 = PasskeyCrypto.exportPrivateKeyPKCS8(keyPair.getPrivate());
+        privateKey = PasskeyCrypto.importPrivateKey(privateKeyPkcs8);
+        authData = AuthenticatorDataBuilder.buildForAssertion(RP_ID);
+        byte[] clientData = AuthenticatorDataBuilder.buildClientDataJSONForAssertion(
+                new byte[32], "https://" + RP_ID);
+        clientDataHash = PasskeyCrypto.sha256(clientData);
+    }
+
+    @Benchmark
+    public byte[] buildForRegistration() throws Exception {
+        return AuthenticatorDataBuilder.buildForRegistration(RP_ID, credentialId, keyPair.getPublic());
+    }
+
+    @Benchmark
+    public byte[] buildForAssertion() throws Exception {
+        return AuthenticatorDataBuilder.buildForAssertion(RP_ID);
+    }
+
+    @Benchmark
+    public byte[] encodeAttestationObject() {
+        return AuthenticatorDataBuilder.encodeAttestationObject(authData);
+    }
+
+    @Benchmark
+    public PrivateKey importPrivateKey() throws Exception {
+        return PasskeyCrypto.importPrivateKey(privateKeyPkcs8);
+    }
+
+    @Benchmark
+    public String signAssertion() throws Exception {
+        return PasskeyCrypto.signAssertion(privateKey, authData, clientDataHash);
+    }
+}
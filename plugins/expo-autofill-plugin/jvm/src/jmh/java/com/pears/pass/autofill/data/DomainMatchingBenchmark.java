@@ -0,0 +1,91 @@
+package com.pears.pass.autofill.data;
+
+import com.pears.pass.autofill.TestContext;
+import com.pears.pass.autofill.utils.PublicSuffixList;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtering an ACTIVE_VAULT_LIST reply of {@code records} logins for the
+ * site being filled, and converting matching records to maps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DomainMatchingBenchmark {
+
+    @Param({"100", "2000"})
+    public int records;
+
+    private PublicSuffixList suffixes;
+    private List<VaultRecord> vault;
+    private RecordQuery domainQuery;
+    private RecordQuery packageQuery;
+    private JSONObject record;
+
+    @Setup
+    public void setUp() throws Exception {
+        suffixes = PublicSuffixList.get(new TestContext());
+
+        JSONArray list = new JSONArray();
+        for (int i = 0; i < records; i++) {
+            list.put(new JSONObject()
+                    .put("id", "record-" + i)
+                    .put("type", "login")
+                    .put("vaultId", "vault-0")
+                    .put("data", new JSONObject()
+                            .put("title", "Login " + i)
+                            .put("username", "user" + i + "@example.com")
+                            .put("password", "password-" + i)
+                            .put("websites", new JSONArray()
+                                    .put("https://www.site" + i + ".co.uk/login")
+                                    .put("site" + i + ".app.example.com"))
+                            .put("note", "")));
+        }
+        vault = VaultRecord.fromReply(list);
+        record = list.getJSONObject(records / 2);
+
+        domainQuery = new RecordQuery().type("login").domain("https://accounts.site" + (records / 2) + ".co.uk/");
+        packageQuery = new RecordQuery().type("login").packageName("uk.co.site" + (records / 2) + ".android");
+    }
+
+    @Benchmark
+    public int matchDomain() {
+        int matches = 0;
+        for (VaultRecord candidate : vault) {
+            if (domainQuery.matches(candidate, suffixes)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int matchPackageName() {
+        int matches = 0;
+        for (VaultRecord candidate : vault) {
+            if (packageQuery.matches(candidate, suffixes)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public Map<String, Object> recordToMap() throws Exception {
+        return VaultRecord.toMap(record);
+    }
+}
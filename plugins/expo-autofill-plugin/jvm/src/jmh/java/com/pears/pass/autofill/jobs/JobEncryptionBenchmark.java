@@ -0,0 +1,63 @@
+package com.pears.pass.autofill.jobs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * crypto_secretbox through the copying and the in-place entry points. On the
+ * JVM {@code SodiumAndroid} is lazysodium-java's {@code SodiumJava} loading
+ * the host libsodium, so absolute numbers are not the device's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JobEncryptionBenchmark {
+
+    @Param({"256", "4096", "65536"})
+    public int size;
+
+    private byte[] key;
+    private byte[] plaintext;
+    private byte[] sealed;
+    private byte[] out;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(size);
+        key = new byte[JobEncryption.KEY_BYTES];
+        random.nextBytes(key);
+        plaintext = new byte[size];
+        random.nextBytes(plaintext);
+        sealed = JobEncryption.encrypt(plaintext, key);
+        out = new byte[JobEncryption.sealedLength(size)];
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        return JobEncryption.encrypt(plaintext, key);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Exception {
+        return JobEncryption.decrypt(sealed, key);
+    }
+
+    @Benchmark
+    public int encryptInto() throws Exception {
+        return JobEncryption.encrypt(plaintext, 0, plaintext.length, key, out, 0);
+    }
+
+    @Benchmark
+    public int decryptInto() throws Exception {
+        return JobEncryption.decrypt(sealed, 0, sealed.length, key, out, 0);
+    }
+}
@@ -0,0 +1,84 @@
+package com.pears.pass.autofill.jobs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appending one job to, and reading back, a queue already holding
+ * {@code queueSize} passkey jobs. Runs against a temporary directory, so the
+ * numbers include real file I/O and fsync on the host file system.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JobFileManagerBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int queueSize;
+
+    private File directory;
+    private JobFileManager manager;
+    private byte[] key;
+    private List<Job> queue;
+    private Job extraJob;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        directory = Files.createTempDirectory("jobs-bench").toFile();
+        manager = new JobFileManager(directory);
+        key = TestJobs.key(42);
+
+        queue = new ArrayList<>(queueSize);
+        for (int i = 0; i < queueSize; i++) {
+            queue.add(TestJobs.addPasskey("job-" + i, "record-" + i));
+        }
+        extraJob = TestJobs.addPasskey("job-" + queueSize, "record-" + queueSize);
+        manager.writeJobs(queue, key);
+    }
+
+    /**
+     * appendJob grows the file, so restore the queue before each call to keep
+     * measuring the same size.
+     */
+    @Setup(Level.Invocation)
+    public void resetQueue() throws Exception {
+        manager.writeJobs(queue, key);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.deleteJobFile();
+        manager.deleteAttachmentsFolder();
+        File[] leftovers = directory.listFiles();
+        if (leftovers != null) {
+            for (File file : leftovers) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public void appendJob() throws Exception {
+        manager.appendJob(extraJob, key);
+    }
+
+    @Benchmark
+    public List<Job> readJobs() throws Exception {
+        return manager.readJobs(key);
+    }
+}
@@ -0,0 +1,73 @@
+package com.pears.pass.autofill.utils;
+
+import com.pears.pass.autofill.TestContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups against the public suffix trie, plus the one-off cost of loading it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PublicSuffixListBenchmark {
+
+    private byte[] trie;
+    private PublicSuffixList suffixes;
+
+    @Setup
+    public void setUp() throws Exception {
+        TestContext context = new TestContext();
+        try (InputStream in = context.getResources().openRawResource(com.pears.pass.R.raw.public_suffixes)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            trie = out.toByteArray();
+        }
+        suffixes = new PublicSuffixList(trie);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public PublicSuffixList load() {
+        return new PublicSuffixList(trie);
+    }
+
+    @Benchmark
+    public int registrableDomainSimple() {
+        return suffixes.registrableDomain("www.example.com");
+    }
+
+    @Benchmark
+    public int registrableDomainUrl() {
+        return suffixes.registrableDomain("https://user@login.accounts.example.co.uk:8443/signin?next=/");
+    }
+
+    @Benchmark
+    public int registrableDomainWildcard() {
+        return suffixes.registrableDomain("shop.city.kawasaki.jp");
+    }
+
+    @Benchmark
+    public boolean sameRegistrableDomain() {
+        return suffixes.sameRegistrableDomain("https://mail.google.com/mail/u/0", "accounts.google.com");
+    }
+
+    @Benchmark
+    public boolean differentPrivateSuffix() {
+        return suffixes.sameRegistrableDomain("https://alice.github.io", "bob.github.io");
+    }
+}
@@ -0,0 +1,50 @@
+package android.content;
+
+import android.content.pm.PackageManager;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+
+import java.io.File;
+
+/**
+ * JVM stand-in for the Android Context. Every method throws; tests subclass it
+ * and override what the code under test reads.
+ */
+public class Context {
+
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    public File getFilesDir() {
+        throw new UnsupportedOperationException("getFilesDir");
+    }
+
+    public File getCacheDir() {
+        throw new UnsupportedOperationException("getCacheDir");
+    }
+
+    public File getCodeCacheDir() {
+        throw new UnsupportedOperationException("getCodeCacheDir");
+    }
+
+    public File getExternalFilesDir(String type) {
+        return null;
+    }
+
+    public AssetManager getAssets() {
+        throw new UnsupportedOperationException("getAssets");
+    }
+
+    public Resources getResources() {
+        throw new UnsupportedOperationException("getResources");
+    }
+
+    public PackageManager getPackageManager() {
+        throw new UnsupportedOperationException("getPackageManager");
+    }
+
+    public String getPackageName() {
+        return "com.pears.pass";
+    }
+}
@@ -0,0 +1,14 @@
+package android.content.pm;
+
+public class PackageManager {
+
+    public static class NameNotFoundException extends Exception {
+        public NameNotFoundException(String name) {
+            super(name);
+        }
+    }
+
+    public PackageInfo getPackageInfo(String packageName, int flags) throws NameNotFoundException {
+        throw new NameNotFoundException(packageName);
+    }
+}
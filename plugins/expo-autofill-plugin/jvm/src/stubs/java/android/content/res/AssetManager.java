@@ -0,0 +1,11 @@
+package android.content.res;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public class AssetManager {
+
+    public InputStream open(String fileName) throws IOException {
+        throw new IOException("No assets on the JVM: " + fileName);
+    }
+}
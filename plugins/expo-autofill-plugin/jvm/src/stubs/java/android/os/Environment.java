@@ -0,0 +1,11 @@
+package android.os;
+
+public class Environment {
+    public static final String MEDIA_MOUNTED = "mounted";
+    public static final String MEDIA_MOUNTED_READ_ONLY = "mounted_ro";
+    public static final String MEDIA_UNMOUNTED = "unmounted";
+
+    public static String getExternalStorageState() {
+        return MEDIA_UNMOUNTED;
+    }
+}
@@ -0,0 +1,22 @@
+package android.os;
+
+/**
+ * Compile-only: the JVM build has no message loop.
+ */
+public class Handler {
+
+    public Handler(Looper looper) {
+    }
+
+    public boolean post(Runnable r) {
+        throw new UnsupportedOperationException("Handler.post");
+    }
+
+    public boolean postDelayed(Runnable r, long delayMillis) {
+        throw new UnsupportedOperationException("Handler.postDelayed");
+    }
+
+    public void removeCallbacks(Runnable r) {
+        throw new UnsupportedOperationException("Handler.removeCallbacks");
+    }
+}
@@ -0,0 +1,15 @@
+package android.os;
+
+/**
+ * Compile-only, see {@link Handler}.
+ */
+public class HandlerThread extends Thread {
+
+    public HandlerThread(String name) {
+        super(name);
+    }
+
+    public Looper getLooper() {
+        throw new UnsupportedOperationException("HandlerThread.getLooper");
+    }
+}
@@ -0,0 +1,13 @@
+package android.os;
+
+public final class Looper {
+
+    private static final Looper MAIN = new Looper();
+
+    Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN;
+    }
+}
@@ -0,0 +1,32 @@
+package android.util;
+
+/**
+ * The android.util.Base64 flags used by the autofill code, on top of java.util.Base64.
+ */
+public final class Base64 {
+    public static final int DEFAULT = 0;
+    public static final int NO_PADDING = 1;
+    public static final int NO_WRAP = 2;
+    public static final int URL_SAFE = 8;
+
+    private Base64() {
+    }
+
+    public static String encodeToString(byte[] input, int flags) {
+        java.util.Base64.Encoder encoder = (flags & URL_SAFE) != 0
+                ? java.util.Base64.getUrlEncoder()
+                : (flags & NO_WRAP) != 0 ? java.util.Base64.getEncoder() : java.util.Base64.getMimeEncoder();
+        if ((flags & NO_PADDING) != 0) {
+            encoder = encoder.withoutPadding();
+        }
+        return encoder.encodeToString(input);
+    }
+
+    public static byte[] decode(String str, int flags) {
+        String s = str.trim();
+        if ((flags & URL_SAFE) != 0) {
+            return java.util.Base64.getUrlDecoder().decode(s);
+        }
+        return java.util.Base64.getMimeDecoder().decode(s);
+    }
+}
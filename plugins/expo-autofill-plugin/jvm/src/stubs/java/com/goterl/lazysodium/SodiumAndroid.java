@@ -0,0 +1,7 @@
+package com.goterl.lazysodium;
+
+/**
+ * lazysodium-java's binding, under the lazysodium-android class name.
+ */
+public class SodiumAndroid extends SodiumJava {
+}
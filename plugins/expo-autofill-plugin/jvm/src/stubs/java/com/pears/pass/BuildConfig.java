@@ -0,0 +1,5 @@
+package com.pears.pass;
+
+public final class BuildConfig {
+    public static final boolean DEBUG = false;
+}
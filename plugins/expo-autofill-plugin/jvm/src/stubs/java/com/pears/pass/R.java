@@ -0,0 +1,7 @@
+package com.pears.pass;
+
+public final class R {
+    public static final class raw {
+        public static final int public_suffixes = 0x7f110000;
+    }
+}
@@ -0,0 +1,15 @@
+package com.pears.pass.autofill.ui;
+
+/**
+ * Only the error types, which VaultErrorUtils classifies into.
+ */
+public class ErrorBoundaryFragment {
+
+    public enum ErrorType {
+        GENERIC_ERROR,
+        INITIALIZATION_FAILED,
+        VAULT_CLIENT_ERROR,
+        VAULT_LOCKED_ERROR,
+        TIMEOUT_ERROR
+    }
+}
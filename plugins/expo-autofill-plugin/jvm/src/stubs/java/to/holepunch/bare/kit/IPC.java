@@ -0,0 +1,32 @@
+package to.holepunch.bare.kit;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compile-only, see {@link Worklet}.
+ */
+public class IPC {
+
+    public interface ReadCallback {
+        void apply(ByteBuffer data, Throwable exception);
+    }
+
+    public interface WriteCallback {
+        void apply(Throwable exception);
+    }
+
+    public IPC(Worklet worklet) {
+        throw new UnsupportedOperationException("Bare IPC needs the Android runtime");
+    }
+
+    public void read(ReadCallback callback) {
+        throw new UnsupportedOperationException();
+    }
+
+    public void write(ByteBuffer data, WriteCallback callback) {
+        throw new UnsupportedOperationException();
+    }
+
+    public void close() {
+    }
+}
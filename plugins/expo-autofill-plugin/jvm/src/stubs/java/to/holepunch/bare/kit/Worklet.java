@@ -0,0 +1,30 @@
+package to.holepunch.bare.kit;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Compile-only: the Bare runtime is not available on the JVM. Tests talk to
+ * an in-memory WorkletTransport instead of BareHelper.
+ */
+public class Worklet {
+
+    public static class Options {
+        public int memoryLimit;
+    }
+
+    public Worklet(Options options) {
+        throw new UnsupportedOperationException("Bare worklets need the Android runtime");
+    }
+
+    public void start(String filename, ByteBuffer source, String[] arguments) {
+        throw new UnsupportedOperationException();
+    }
+
+    public void start(String filename, InputStream source, String[] arguments) {
+        throw new UnsupportedOperationException();
+    }
+
+    public void terminate() {
+    }
+}
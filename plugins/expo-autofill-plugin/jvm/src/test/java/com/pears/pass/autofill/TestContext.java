@@ -0,0 +1,64 @@
+package com.pears.pass.autofill;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+import com.pears.pass.R;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+
+/**
+ * Context whose raw resources come from the template's {@code res/raw}
+ * directory, located through the {@code autofill.res} system property, and
+ * whose files and cache directories live under {@code baseDirectory}.
+ */
+public class TestContext extends Context {
+
+    private final File baseDirectory;
+
+    private final Resources resources = new Resources() {
+        @Override
+        public InputStream openRawResource(int id) {
+            if (id != R.raw.public_suffixes) {
+                return super.openRawResource(id);
+            }
+            try {
+                return new FileInputStream(System.getProperty("autofill.res") + "/raw/public_suffixes.bin");
+            } catch (FileNotFoundException e) {
+                throw new NotFoundException(e.getMessage());
+            }
+        }
+    };
+
+    public TestContext() {
+        this(new File(System.getProperty("java.io.tmpdir"), "autofill-test"));
+    }
+
+    public TestContext(File baseDirectory) {
+        this.baseDirectory = baseDirectory;
+    }
+
+    @Override
+    public File getFilesDir() {
+        return directory("files");
+    }
+
+    @Override
+    public File getCacheDir() {
+        return directory("cache");
+    }
+
+    @Override
+    public Resources getResources() {
+        return resources;
+    }
+
+    private File directory(String name) {
+        File directory = new File(baseDirectory, name);
+        directory.mkdirs();
+        return directory;
+    }
+}
@@ -0,0 +1,287 @@
+package com.pears.pass.autofill.data;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory stand-in for the vault worklet, answering the requests the
+ * autofill extension makes from a synthetic set of vaults.
+ *
+ * Every vault is unprotected and holds login records; every
+ * {@link #passkeyEvery(int)}th record also carries a passkey credential. Each
+ * record's note is padded to {@link #noteLength(int)} characters so reply
+ * sizes can match real vaults. Replies are delivered in order on a single
+ * thread after {@link #latencyMs(long)}, like the vault-core worklet.
+ *
+ * Usage:
+ * <pre>
+ *   WorkletTransport transport = new InMemoryWorkletTransport()
+ *       .vaults(3)
+ *       .recordsPerVault(2000)
+ *       .latencyMs(5);
+ *   PearPassVaultClient client = new PearPassVaultClient(context, null, false, true, transport);
+ * </pre>
+ *
+ * Commands it does not know are answered with an error reply.
+ */
+public class InMemoryWorkletTransport implements WorkletTransport {
+
+    // Command values of PearPassVaultClient.API
+    private static final int STORAGE_PATH_SET = 1;
+    private static final int MASTER_VAULT_GET_STATUS = 3;
+    private static final int MASTER_VAULT_GET = 4;
+    private static final int MASTER_VAULT_CLOSE = 5;
+    private static final int MASTER_VAULT_LIST = 7;
+    private static final int ACTIVE_VAULT_INIT = 11;
+    private static final int ACTIVE_VAULT_GET_STATUS = 12;
+    private static final int ACTIVE_VAULT_CLOSE = 13;
+    private static final int ACTIVE_VAULT_LIST = 16;
+    private static final int ENCRYPTION_GET_STATUS = 24;
+    private static final int CLOSE_ALL_INSTANCES = 33;
+    private static final int SET_CORE_STORE_OPTIONS = 49;
+
+    private int vaultCount = 1;
+    private int recordsPerVault = 100;
+    private int passkeyEvery = 10;
+    private int noteLength = 0;
+    private long latencyMs = 0;
+
+    private final Map<String, JSONArray> recordsByVault = new HashMap<>();
+    private ScheduledExecutorService executor;
+    private volatile MessageListener listener;
+    private volatile boolean running = false;
+    private volatile long lastStartDurationMs = -1;
+    private String activeVaultId;
+
+    public InMemoryWorkletTransport vaults(int count) {
+        this.vaultCount = count;
+        return this;
+    }
+
+    public InMemoryWorkletTransport recordsPerVault(int count) {
+        this.recordsPerVault = count;
+        return this;
+    }
+
+    /**
+     * Give every {@code n}th record a passkey; 0 for none.
+     */
+    public InMemoryWorkletTransport passkeyEvery(int n) {
+        this.passkeyEvery = n;
+        return this;
+    }
+
+    /**
+     * Pad each record's note to {@code length} characters.
+     */
+    public InMemoryWorkletTransport noteLength(int length) {
+        this.noteLength = length;
+        return this;
+    }
+
+    /**
+     * Delay every reply by {@code latencyMs}, simulating the worklet round trip.
+     */
+    public InMemoryWorkletTransport latencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+        return this;
+    }
+
+    @Override
+    public boolean startWorklet() {
+        long startedAt = System.nanoTime();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "InMemoryWorklet");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        lastStartDurationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        return true;
+    }
+
+    @Override
+    public long getLastStartDurationMs() {
+        return lastStartDurationMs;
+    }
+
+    @Override
+    public void post(String message, WriteCallback callback) {
+        if (!running) {
+            if (callback != null) {
+                callback.onComplete(new Exception("Worklet not running"));
+            }
+            return;
+        }
+        if (callback != null) {
+            callback.onComplete(null);
+        }
+        executor.schedule(() -> deliver(message), latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void startReading(MessageListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        listener = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void deliver(String message) {
+        MessageListener current = listener;
+        if (current == null) {
+            return;
+        }
+
+        JSONObject reply = new JSONObject();
+        try {
+            JSONObject request = new JSONObject(message);
+            int command = request.getInt("command");
+            if (command == CLOSE_ALL_INSTANCES) {
+                return;
+            }
+            handle(command, request.optJSONObject("data"), reply);
+        } catch (JSONException e) {
+            current.onError(e);
+            return;
+        }
+        String text = reply.toString();
+        current.onMessage(text, text.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private void handle(int command, JSONObject data, JSONObject reply) throws JSONException {
+        switch (command) {
+            case STORAGE_PATH_SET:
+            case SET_CORE_STORE_OPTIONS:
+            case MASTER_VAULT_CLOSE:
+                reply.put("data", new JSONObject().put("success", true));
+                break;
+            case MASTER_VAULT_GET_STATUS:
+                reply.put("data", new JSONObject().put("status", true));
+                break;
+            case MASTER_VAULT_GET:
+                // No master password: an empty masterEncryption entry
+                reply.put("data", new JSONObject());
+                break;
+            case MASTER_VAULT_LIST:
+                reply.put("data", vaultList());
+                break;
+            case ACTIVE_VAULT_INIT:
+                String id = data != null ? data.optString("id", null) : null;
+                if (id == null || vaultIndex(id) < 0) {
+                    reply.put("error", "Vault not found: " + id);
+                } else {
+                    activeVaultId = id;
+                    reply.put("data", new JSONObject().put("success", true));
+                }
+                break;
+            case ACTIVE_VAULT_GET_STATUS:
+                reply.put("data", new JSONObject()
+                        .put("status", activeVaultId != null)
+                        .put("id", activeVaultId != null ? activeVaultId : JSONObject.NULL));
+                break;
+            case ACTIVE_VAULT_CLOSE:
+                activeVaultId = null;
+                reply.put("data", new JSONObject().put("success", true));
+                break;
+            case ACTIVE_VAULT_LIST:
+                if (activeVaultId == null) {
+                    reply.put("error", "ELOCKED: no active vault");
+                } else {
+                    reply.put("data", records(activeVaultId));
+                }
+                break;
+            case ENCRYPTION_GET_STATUS:
+                reply.put("data", new JSONObject().put("status", true).put("hasKey", true));
+                break;
+            default:
+                reply.put("error", "Command " + command + " is not supported by the in-memory worklet");
+        }
+    }
+
+    private JSONArray vaultList() throws JSONException {
+        JSONArray vaults = new JSONArray();
+        for (int v = 0; v < vaultCount; v++) {
+            vaults.put(new JSONObject()
+                    .put("id", vaultId(v))
+                    .put("name", "Vault " + v)
+                    .put("version", 1)
+                    .put("createdAt", 1700000000000L)
+                    .put("updatedAt", 1700000000000L));
+        }
+        return vaults;
+    }
+
+    /**
+     * The records of a vault, generated on first use and then reused.
+     */
+    private JSONArray records(String vaultId) throws JSONException {
+        JSONArray records = recordsByVault.get(vaultId);
+        if (records != null) {
+            return records;
+        }
+
+        StringBuilder note = new StringBuilder(noteLength);
+        while (note.length() < noteLength) {
+            note.append('x');
+        }
+
+        records = new JSONArray();
+        for (int r = 0; r < recordsPerVault; r++) {
+            String domain = "site" + (r % 500) + ".com";
+            JSONObject recordData = new JSONObject()
+                    .put("title", "Login " + r)
+                    .put("username", "user" + r + "@example.com")
+                    .put("password", "password-" + r)
+                    .put("websites", new JSONArray().put("https://www." + domain + "/login"))
+                    .put("note", note.toString());
+            if (passkeyEvery > 0 && r % passkeyEvery == 0) {
+                recordData.put("credential", new JSONObject()
+                        .put("id", "credential-" + vaultId + "-" + r)
+                        .put("rawId", "credential-" + vaultId + "-" + r)
+                        .put("type", "public-key"));
+                recordData.put("passkeyCreatedAt", 1700000000000L + r);
+            }
+            records.put(new JSONObject()
+                    .put("id", vaultId + "-record-" + r)
+                    .put("type", "login")
+                    .put("vaultId", vaultId)
+                    .put("folder", r % 7 == 0 ? "Folder " + (r % 3) : JSONObject.NULL)
+                    .put("data", recordData));
+        }
+        recordsByVault.put(vaultId, records);
+        return records;
+    }
+
+    private static String vaultId(int index) {
+        return "vault-" + index;
+    }
+
+    private int vaultIndex(String id) {
+        for (int v = 0; v < vaultCount; v++) {
+            if (vaultId(v).equals(id)) {
+                return v;
+            }
+        }
+        return -1;
+    }
+}
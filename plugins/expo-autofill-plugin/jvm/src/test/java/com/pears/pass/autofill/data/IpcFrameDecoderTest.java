@@ -0,0 +1,109 @@
+package com.pears.pass.autofill.data;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class IpcFrameDecoderTest {
+
+    private static final int MAX_FRAME_SIZE = 1 << 20;
+
+    @Test
+    public void rejectsBinaryBetweenFrames() {
+        IpcFrameDecoder decoder = new IpcFrameDecoder(MAX_FRAME_SIZE);
+        try {
+            decoder.feed(ByteBuffer.wrap(new byte[]{(byte) 0xA1, 0x61, 'a', 0x01}), (buffer, offset, length) -> { });
+            fail("Non-JSON frame accepted");
+        } catch (IOException expected) {
+            assertEquals(0, decoder.bufferedBytes());
+        }
+    }
+
+    @Test
+    public void splitsFramesAtEveryBoundary() throws Exception {
+        List<byte[]> frames = Arrays.asList(
+                "{\"requestId\":1,\"data\":\"}{\\\"\"}".getBytes(StandardCharsets.UTF_8),
+                "{\"data\":[\"value\",1.5,true,null]}".getBytes(StandardCharsets.UTF_8),
+                jsonReply(repeat('z', 70_000)),
+                "[1,[2]]".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (byte[] frame : frames) {
+            stream.write(frame);
+            stream.write('\n');
+        }
+        byte[] bytes = stream.toByteArray();
+
+        for (int split = 1; split < bytes.length; split += 997) {
+            assertFrames(frames, feedInReads(bytes, split, bytes.length));
+        }
+        assertFrames(frames, feedInReads(bytes, bytes.length, bytes.length));
+    }
+
+    @Test
+    public void resumesLargeFrameFedByteByByte() throws Exception {
+        byte[] frame = jsonReply(repeat('y', 200_000));
+        List<byte[]> frames = feedInReads(frame, 1, 1);
+        assertFrames(Arrays.asList(frame), frames);
+    }
+
+    @Test
+    public void dropsPartialFrameLongerThanMaxFrameSize() {
+        IpcFrameDecoder decoder = new IpcFrameDecoder(1024);
+        try {
+            // The closing quote and brace never arrive
+            byte[] partial = ("{\"data\":\"" + repeat('x', 2048)).getBytes(StandardCharsets.UTF_8);
+            decoder.feed(ByteBuffer.wrap(partial), (buffer, offset, length) -> { });
+            fail("Oversized partial frame kept");
+        } catch (IOException expected) {
+            assertEquals(0, decoder.bufferedBytes());
+        }
+    }
+
+    /**
+     * Feed {@code bytes} as one read of {@code first} bytes followed by reads of
+     * {@code rest} bytes, and collect the frames.
+     */
+    private static List<byte[]> feedInReads(byte[] bytes, int first, int rest) throws IOException {
+        IpcFrameDecoder decoder = new IpcFrameDecoder(MAX_FRAME_SIZE);
+        List<byte[]> frames = new ArrayList<>();
+        IpcFrameDecoder.FrameListener listener =
+                (buffer, offset, length) -> frames.add(Arrays.copyOfRange(buffer, offset, offset + length));
+        int pos = 0;
+        int read = first;
+        while (pos < bytes.length) {
+            int length = Math.min(read, bytes.length - pos);
+            decoder.feed(ByteBuffer.wrap(bytes, pos, length), listener);
+            pos += length;
+            read = rest;
+        }
+        assertEquals(0, decoder.bufferedBytes());
+        return frames;
+    }
+
+    private static void assertFrames(List<byte[]> expected, List<byte[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    private static byte[] jsonReply(String value) {
+        return ("{\"data\":\"" + value + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,154 @@
+package com.pears.pass.autofill.data;
+
+import com.pears.pass.autofill.TestContext;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the operations of an autofill session (listVaults, getVaultById,
+ * searchLoginRecords, listPasskeys) from several threads against an
+ * in-memory worklet holding vaults of realistic size, and reports latency
+ * percentiles per operation.
+ *
+ * The fake worklet spreads 500 sites over each vault's records, so every
+ * vault gives the same answer to a lookup and results can be checked no
+ * matter which vault another thread switched to in between.
+ */
+public class VaultClientLoadTest {
+
+    private static final int VAULTS = 3;
+    private static final int RECORDS_PER_VAULT = 2000;
+    private static final int NOTE_LENGTH = 200;
+    private static final int THREADS = 4;
+    private static final int ITERATIONS = 25;
+
+    private PearPassVaultClient client;
+    private File storage;
+
+    @After
+    public void tearDown() throws Exception {
+        if (client != null) {
+            client.destroy();
+        }
+        if (storage != null) {
+            deleteRecursively(storage);
+        }
+    }
+
+    @Test
+    public void concurrentSessions() throws Exception {
+        storage = Files.createTempDirectory("vault-load").toFile();
+        InMemoryWorkletTransport transport = new InMemoryWorkletTransport()
+                .vaults(VAULTS)
+                .recordsPerVault(RECORDS_PER_VAULT)
+                .passkeyEvery(10)
+                .noteLength(NOTE_LENGTH)
+                .latencyMs(1);
+        client = new PearPassVaultClient(new TestContext(storage), storage.getPath(), false, true, transport);
+        client.waitForInitialization().get(10, TimeUnit.SECONDS);
+
+        Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                runs.add(executor.submit(() -> {
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        runSession(thread * ITERATIONS + i, latencies);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> run : runs) {
+                run.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Switching the active vault keeps the vault list cached; only threads
+        // racing the very first load can miss
+        assertTrue("Metadata cache misses: " + client.getMetadataCacheMisses(),
+                client.getMetadataCacheMisses() <= THREADS);
+
+        System.out.println("VaultClientLoadTest " + VAULTS + " vaults x "
+                + RECORDS_PER_VAULT + " records, " + THREADS + " threads x " + ITERATIONS + " sessions");
+        for (String operation : Arrays.asList("listVaults", "getVaultById", "searchLoginRecords", "listPasskeys")) {
+            List<Long> samples = latencies.get(operation);
+            assertEquals(operation, THREADS * ITERATIONS, samples.size());
+            Collections.sort(samples);
+            System.out.printf("  %-18s p50 %6.2fms  p95 %6.2fms  max %6.2fms%n", operation,
+                    millis(percentile(samples, 50)), millis(percentile(samples, 95)),
+                    millis(samples.get(samples.size() - 1)));
+        }
+    }
+
+    /**
+     * One autofill session: list vaults, open one, look up a login, list passkeys.
+     */
+    private void runSession(int session, Map<String, List<Long>> latencies) throws Exception {
+        int record = (session * 37) % RECORDS_PER_VAULT;
+        String domain = "site" + (record % 500) + ".com";
+
+        List<PearPassVaultClient.Vault> vaults = timed(latencies, "listVaults", () -> client.listVaults().get());
+        assertEquals(VAULTS, vaults.size());
+
+        String vaultId = vaults.get(session % VAULTS).id;
+        boolean opened = timed(latencies, "getVaultById", () -> client.getVaultById(vaultId, (String) null).get());
+        assertTrue("Failed to open " + vaultId, opened);
+
+        List<Map<String, Object>> logins = timed(latencies, "searchLoginRecords",
+                () -> client.searchLoginRecords(domain, "user" + record + "@example.com").get());
+        assertEquals(1, logins.size());
+
+        // Every 10th record has a passkey, and each site repeats every 500 records
+        List<CredentialItem> passkeys = timed(latencies, "listPasskeys", () -> client.listPasskeys(domain).get());
+        assertEquals(record % 10 == 0 ? RECORDS_PER_VAULT / 500 : 0, passkeys.size());
+    }
+
+    private static <T> T timed(Map<String, List<Long>> latencies, String operation, Callable<T> call) throws Exception {
+        long startedAt = System.nanoTime();
+        T result = call.call();
+        latencies.computeIfAbsent(operation, key -> Collections.synchronizedList(new ArrayList<>()))
+                .add(System.nanoTime() - startedAt);
+        return result;
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,95 @@
+package com.pears.pass.autofill.jobs;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class JobBatchTest {
+
+    private final byte[] key = TestJobs.key(3);
+    private File directory;
+    private JobFileManager manager;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("job-batch").toFile();
+        manager = new JobFileManager(directory);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void replacesPendingJobsInOneWrite() throws Exception {
+        manager.writeJobs(Arrays.asList(
+                TestJobs.addPasskey("old", "record-1"),
+                TestJobs.addPasskey("other", "record-2")), key);
+        long generation = generation();
+
+        JobBatch batch = new JobBatch(manager);
+        batch.removeJobsForRecord("record-1");
+        batch.addJob(TestJobs.addPasskey("new", "record-1"));
+        batch.commit(key);
+
+        assertEquals(Arrays.asList("other", "new"), jobIds());
+        assertEquals(generation + 1, generation());
+    }
+
+    @Test
+    public void appendsWhenNothingIsPendingForTheRecord() throws Exception {
+        manager.writeJobs(Arrays.asList(TestJobs.addPasskey("other", "record-2")), key);
+
+        JobBatch batch = new JobBatch(manager);
+        batch.removeJobsForRecord("record-1");
+        batch.addJob(TestJobs.addPasskey("new", "record-1"));
+        batch.commit(key);
+
+        assertEquals(Arrays.asList("other", "new"), jobIds());
+    }
+
+    @Test
+    public void removesWithoutAddingAnything() throws Exception {
+        manager.writeJobs(Arrays.asList(TestJobs.addPasskey("old", "record-1")), key);
+
+        JobBatch batch = new JobBatch(manager);
+        batch.removeJobsForRecord("record-1");
+        batch.commit(key);
+
+        assertEquals(new ArrayList<String>(), jobIds());
+    }
+
+    private List<String> jobIds() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (Job job : manager.readJobs(key)) {
+            ids.add(job.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * The header's generation counter, bumped by every full rewrite.
+     */
+    private long generation() throws Exception {
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, "jobs.enc"), "r")) {
+            file.seek(8);
+            return Integer.reverseBytes(file.readInt()) & 0xFFFFFFFFL;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.pears.pass.autofill.jobs;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class JobEncryptionTest {
+
+    private final byte[] key = randomBytes(JobEncryption.KEY_BYTES, 1);
+
+    @Test
+    public void roundTripsWholeArrays() throws Exception {
+        byte[] plaintext = "{\"jobs\":[]}".getBytes(StandardCharsets.UTF_8);
+
+        byte[] sealed = JobEncryption.encrypt(plaintext, key);
+
+        assertEquals(JobEncryption.sealedLength(plaintext.length), sealed.length);
+        assertArrayEquals(plaintext, JobEncryption.decrypt(sealed, key));
+    }
+
+    @Test
+    public void roundTripsRangesWithinLargerArrays() throws Exception {
+        byte[] source = randomBytes(4096, 2);
+        int offset = 100;
+        int length = 3000;
+        byte[] sealed = new byte[16 + JobEncryption.sealedLength(length) + 8];
+        Arrays.fill(sealed, (byte) 0x5a);
+
+        int written = JobEncryption.encrypt(source, offset, length, key, sealed, 16);
+
+        assertEquals(JobEncryption.sealedLength(length), written);
+        // Bytes around the output range are left alone
+        assertEquals(0x5a, sealed[15]);
+        assertEquals(0x5a, sealed[16 + written]);
+
+        byte[] opened = new byte[length + 4];
+        int read = JobEncryption.decrypt(sealed, 16, written, key, opened, 4);
+        assertEquals(length, read);
+        assertArrayEquals(Arrays.copyOfRange(source, offset, offset + length),
+                Arrays.copyOfRange(opened, 4, 4 + length));
+    }
+
+    @Test
+    public void ciphertextMatchesTheArrayOverload() throws Exception {
+        byte[] plaintext = randomBytes(64, 3);
+        byte[] sealed = new byte[JobEncryption.sealedLength(plaintext.length)];
+        JobEncryption.encrypt(plaintext, 0, plaintext.length, key, sealed, 0);
+
+        // The whole-array decrypt reads the nonce and ciphertext the JS reader expects
+        assertArrayEquals(plaintext, JobEncryption.decrypt(sealed, key));
+        assertFalse(Arrays.equals(Arrays.copyOfRange(sealed, JobEncryption.NONCE_BYTES
+                + JobEncryption.MAC_BYTES, sealed.length), plaintext));
+    }
+
+    @Test
+    public void rejectsTamperedCiphertext() throws Exception {
+        byte[] sealed = JobEncryption.encrypt(randomBytes(32, 4), key);
+        sealed[sealed.length - 1] ^= 1;
+
+        try {
+            JobEncryption.decrypt(sealed, key);
+            fail("Expected decryption to fail");
+        } catch (Exception expected) {
+            // crypto_secretbox_open_easy rejected the MAC
+        }
+    }
+
+    @Test
+    public void rejectsWrongKey() throws Exception {
+        byte[] sealed = JobEncryption.encrypt(randomBytes(32, 5), key);
+
+        try {
+            JobEncryption.decrypt(sealed, randomBytes(JobEncryption.KEY_BYTES, 6));
+            fail("Expected decryption to fail");
+        } catch (Exception expected) {
+            // crypto_secretbox_open_easy rejected the MAC
+        }
+    }
+
+    @Test
+    public void channelDecryptMatchesOneShotAcrossChunkBoundaries() throws Exception {
+        int chunk = JobEncryption.STREAM_CHUNK_BYTES;
+        int[] lengths = {1, 31, 32, 33, 64, chunk - 33, chunk - 32, chunk - 31, chunk, 3 * chunk + 17};
+        for (int length : lengths) {
+            byte[] plaintext = randomBytes(length, length);
+            byte[] sealed = JobEncryption.encrypt(plaintext, key);
+            File file = writeWithPrefix(sealed, 16);
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                ByteArrayOutputStream opened = new ByteArrayOutputStream();
+                JobEncryption.decrypt(channel, 16, sealed.length, key, opened::write);
+                assertArrayEquals("length " + length, plaintext, opened.toByteArray());
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void channelDecryptRejectsTamperingBeforeReleasingPlaintext() throws Exception {
+        byte[] sealed = JobEncryption.encrypt(randomBytes(2 * JobEncryption.STREAM_CHUNK_BYTES, 7), key);
+        sealed[sealed.length - 1] ^= 1;
+        File file = writeWithPrefix(sealed, 0);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            JobEncryption.decrypt(channel, 0, sealed.length, key, (buffer, offset, length) -> {
+                throw new AssertionError("Plaintext released before the tag was checked");
+            });
+            fail("Expected decryption to fail");
+        } catch (AssertionError e) {
+            throw e;
+        } catch (Exception expected) {
+            // Poly1305 tag mismatch
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static File writeWithPrefix(byte[] data, int prefix) throws Exception {
+        File file = File.createTempFile("sealed", ".bin");
+        byte[] contents = new byte[prefix + data.length];
+        System.arraycopy(data, 0, contents, prefix, data.length);
+        Files.write(file.toPath(), contents);
+        return file;
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
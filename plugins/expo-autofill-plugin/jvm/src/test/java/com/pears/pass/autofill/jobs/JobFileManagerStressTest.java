@@ -0,0 +1,148 @@
+package com.pears.pass.autofill.jobs;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Concurrent writers in this JVM and in child JVMs, and lock-free readers,
+ * on one job queue. Every append must survive, every removal must stick, and
+ * no reader may see a torn or mixed file.
+ */
+public class JobFileManagerStressTest {
+
+    private static final int KEY_SEED = 7;
+    private static final int THREAD_WRITERS = 3;
+    private static final int PROCESS_WRITERS = 2;
+    private static final int JOBS_PER_WRITER = 20;
+    private static final int READERS = 2;
+
+    private final byte[] key = TestJobs.key(KEY_SEED);
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("jobs-stress").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void concurrentWritersAndReaders() throws Exception {
+        Set<String> expected = Collections.synchronizedSet(new HashSet<>());
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Process> processes = new ArrayList<>();
+        for (int p = 0; p < PROCESS_WRITERS; p++) {
+            String prefix = "process" + p + "-";
+            for (int i = 0; i < JOBS_PER_WRITER; i++) {
+                expected.add(prefix + i);
+            }
+            processes.add(startWriterProcess(prefix));
+        }
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < THREAD_WRITERS; t++) {
+            String prefix = "thread" + t + "-";
+            writers.add(new Thread(() -> {
+                // Separate instances, as separate activities would have
+                JobFileManager manager = new JobFileManager(directory);
+                try {
+                    start.await();
+                    for (int i = 0; i < JOBS_PER_WRITER; i++) {
+                        String recordId = prefix + "record-" + i;
+                        manager.appendJob(TestJobs.addPasskey(prefix + i, recordId), key);
+                        expected.add(prefix + i);
+                        // Replace every third passkey before it was synced, as registration does
+                        if (i % 3 == 0) {
+                            assertEquals(1, manager.removeJobsForRecord(recordId, key));
+                            expected.remove(prefix + i);
+                        }
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }, "writer-" + t));
+        }
+
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(new Thread(() -> {
+                JobFileManager manager = new JobFileManager(directory);
+                try {
+                    start.await();
+                    while (writing.get()) {
+                        Set<String> ids = new HashSet<>();
+                        for (Job job : manager.readJobs(key)) {
+                            assertTrue("Duplicate job " + job.getId(), ids.add(job.getId()));
+                        }
+                        manager.hasPendingJobs(null, key);
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }, "reader-" + r));
+        }
+
+        writers.forEach(Thread::start);
+        readers.forEach(Thread::start);
+        start.countDown();
+
+        for (Thread writer : writers) {
+            writer.join(TimeUnit.SECONDS.toMillis(60));
+        }
+        for (Process process : processes) {
+            assertTrue("Writer process timed out", process.waitFor(60, TimeUnit.SECONDS));
+            assertEquals("Writer process failed", 0, process.exitValue());
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        if (!errors.isEmpty()) {
+            throw new AssertionError("Concurrent access failed", errors.get(0));
+        }
+
+        Set<String> actual = new HashSet<>();
+        for (Job job : new JobFileManager(directory).readJobs(key)) {
+            actual.add(job.getId());
+        }
+        assertEquals(expected, actual);
+        assertTrue(new JobFileManager(directory).hasPendingJobs("vault-0", key));
+    }
+
+    private Process startWriterProcess(String prefix) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                JobQueueWriterProcess.class.getName(),
+                directory.getPath(), prefix, String.valueOf(JOBS_PER_WRITER), String.valueOf(KEY_SEED))
+                .inheritIO()
+                .start();
+    }
+}
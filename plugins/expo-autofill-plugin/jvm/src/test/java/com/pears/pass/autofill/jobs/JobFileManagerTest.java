@@ -0,0 +1,82 @@
+package com.pears.pass.autofill.jobs;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class JobFileManagerTest {
+
+    private final byte[] key = TestJobs.key(11);
+    private File directory;
+    private JobFileManager manager;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("job-file").toFile();
+        manager = new JobFileManager(directory);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void readsQueueSpanningSeveralChunksOneJobAtATime() throws Exception {
+        // Strings with brackets, escapes, and multi-byte characters, so element
+        // boundaries and chunk boundaries fall inside them
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Job job = TestJobs.addPasskey("job-" + i, "record-" + i);
+            job.getPayload()
+                    .put("note", "}]{[\"\\ é€😀 " + i)
+                    .put("nested", new JSONObject().put("list", new JSONArray().put("]").put(new JSONObject())));
+            jobs.add(job);
+        }
+        manager.writeJobs(jobs, key);
+
+        List<Job> read = manager.readJobs(key);
+
+        assertEquals(jobs.size(), read.size());
+        for (int i = 0; i < jobs.size(); i++) {
+            assertEquals(jobs.get(i).toJSON().toString(), read.get(i).toJSON().toString());
+        }
+    }
+
+    @Test
+    public void rejectsTamperedJobFile() throws Exception {
+        List<Job> jobs = new ArrayList<>();
+        jobs.add(TestJobs.addPasskey("job", "record"));
+        manager.writeJobs(jobs, key);
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, "jobs.enc"), "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 1);
+        }
+
+        try {
+            manager.readJobs(key);
+            fail("Expected the tampered job file to be rejected");
+        } catch (Exception expected) {
+            // The tag no longer matches
+        }
+    }
+}
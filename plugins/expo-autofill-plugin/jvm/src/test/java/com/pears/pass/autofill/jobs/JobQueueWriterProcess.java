@@ -0,0 +1,23 @@
+package com.pears.pass.autofill.jobs;
+
+import java.io.File;
+
+/**
+ * Appends jobs to a job queue from a separate JVM, so that
+ * {@link JobFileManagerStressTest} exercises the cross-process file lock.
+ *
+ * Arguments: directory, job ID prefix, job count, key seed.
+ */
+public class JobQueueWriterProcess {
+
+    public static void main(String[] args) throws Exception {
+        JobFileManager manager = new JobFileManager(new File(args[0]));
+        String prefix = args[1];
+        int count = Integer.parseInt(args[2]);
+        byte[] key = TestJobs.key(Integer.parseInt(args[3]));
+
+        for (int i = 0; i < count; i++) {
+            manager.appendJob(TestJobs.addPasskey(prefix + i, prefix + "record-" + i), key);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.pears.pass.autofill.jobs;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Random;
+
+/**
+ * Jobs shaped like the ones the passkey registration flow queues.
+ */
+public final class TestJobs {
+
+    private TestJobs() {
+    }
+
+    /**
+     * A pending ADD_PASSKEY job for {@code recordId}, with a payload of roughly
+     * the size the registration flow writes (keys, credential, record fields).
+     */
+    public static Job addPasskey(String jobId, String recordId) throws Exception {
+        JSONObject payload = new JSONObject()
+                .put("rpId", recordId + ".example.com")
+                .put("rpName", "Site " + recordId)
+                .put("userId", "dXNlci1pZA")
+                .put("userName", recordId + "@example.com")
+                .put("userDisplayName", "User " + recordId)
+                .put("credentialId", "Y3JlZGVudGlhbC1pZC0" + jobId)
+                .put("publicKey", repeat('p', 122))
+                .put("privateKey", repeat('k', 184))
+                .put("clientDataJSON", repeat('c', 180))
+                .put("attestationObject", repeat('a', 300))
+                .put("authenticatorData", repeat('d', 220))
+                .put("algorithm", -7)
+                .put("createdAt", 1_700_000_000_000L)
+                .put("transports", new JSONArray().put("internal").put("hybrid"))
+                .put("recordId", recordId)
+                .put("title", "Site " + recordId)
+                .put("note", "")
+                .put("websites", new JSONArray().put("https://" + recordId + ".example.com"));
+        return new Job(jobId, Job.JobType.ADD_PASSKEY, Job.JobStatus.PENDING,
+                1_700_000_000_000L, 0, 3, "vault-0", payload);
+    }
+
+    public static byte[] key(int seed) {
+        byte[] key = new byte[JobEncryption.KEY_BYTES];
+        new Random(seed).nextBytes(key);
+        return key;
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
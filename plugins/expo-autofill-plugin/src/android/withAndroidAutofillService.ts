@@ -189,6 +189,13 @@ android {
       }
     }
 
+    // Copy raw resources (compiled public suffix list)
+    const rawSrcDir = path.join(templateDir, 'res/raw');
+    const rawDestDir = path.join(resDir, 'raw');
+    if (fs.existsSync(rawSrcDir)) {
+      await copyDirectory(rawSrcDir, rawDestDir);
+    }
+
     // Copy 16KB-aligned libsodium.so native libs to jniLibs
     const jniLibsSrcDir = path.join(templateDir, 'jniLibs');
     if (fs.existsSync(jniLibsSrcDir)) {
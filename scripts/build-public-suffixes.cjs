@@ -0,0 +1,180 @@
+// Compiles the Public Suffix List (https://publicsuffix.org/list/public_suffix_list.dat)
+// into the trie read by the Android autofill extension's PublicSuffixList.
+//
+// Usage: node scripts/build-public-suffixes.cjs <public_suffix_list.dat> [out.bin]
+//
+// When writing the default output, the list's VERSION and COMMIT header lines
+// are recorded in scripts/public-suffixes.version, so the snapshot that the
+// committed .bin was built from is known.
+//
+// Format (big-endian):
+//   header  "PPSL", u16 version, u16 reserved, u32 nodeCount, u32 labelPoolLength
+//   nodes   nodeCount x { u32 labelOffset, u8 labelLength, u8 flags, u16 childCount, u32 firstChild }
+//   labels  ASCII (punycode) label bytes, shared between nodes with the same label
+//
+// Node 0 is the root. A node's children are contiguous and sorted by label
+// bytes, so lookups can binary search them. Labels are stored right to left:
+// "co.uk" is the node "co" under the node "uk".
+
+const fs = require('fs')
+const path = require('path')
+const { domainToASCII } = require('url')
+
+const VERSION = 1
+const HEADER_SIZE = 16
+const NODE_SIZE = 12
+
+const FLAG_RULE = 0x1
+const FLAG_WILDCARD = 0x2
+const FLAG_EXCEPTION = 0x4
+
+const defaultOut = path.resolve(
+  __dirname,
+  '..',
+  'plugins/expo-autofill-plugin/android-template/res/raw/public_suffixes.bin'
+)
+
+const versionFile = path.resolve(__dirname, 'public-suffixes.version')
+
+const newNode = (label) => ({ label, flags: 0, children: new Map() })
+
+const toAscii = (name) => {
+  const ascii = domainToASCII(name)
+  if (!ascii) {
+    throw new Error(`Invalid rule: ${name}`)
+  }
+  return ascii
+}
+
+const parseRules = (text) => {
+  const root = newNode('')
+  let count = 0
+
+  for (const rawLine of text.split('\n')) {
+    // Rules end at the first whitespace; comments start with //
+    const line = rawLine.trim().split(/\s/)[0]
+    if (!line || line.startsWith('//')) {
+      continue
+    }
+
+    let rule = line
+    let flag = FLAG_RULE
+    if (rule.startsWith('!')) {
+      rule = rule.slice(1)
+      flag = FLAG_EXCEPTION
+    } else if (rule.startsWith('*.')) {
+      rule = rule.slice(2)
+      flag = FLAG_WILDCARD
+    }
+    if (rule.includes('*')) {
+      console.warn(`Skipping rule with a non-leading wildcard: ${line}`)
+      continue
+    }
+
+    const labels = toAscii(rule).split('.').reverse()
+    let node = root
+    for (const label of labels) {
+      if (!node.children.has(label)) {
+        node.children.set(label, newNode(label))
+      }
+      node = node.children.get(label)
+    }
+    node.flags |= flag
+    count++
+  }
+
+  return { root, count }
+}
+
+// The published list starts with "// VERSION: <date>" and "// COMMIT: <sha>"
+const readListVersion = (text) => {
+  const header = (name) => {
+    const match = text.match(new RegExp(`^// ${name}: (\\S+)`, 'm'))
+    return match ? match[1] : null
+  }
+  const version = header('VERSION')
+  const commit = header('COMMIT')
+  if (!version || !commit) {
+    throw new Error('Input has no VERSION/COMMIT header; use a published copy of the list')
+  }
+  return { version, commit }
+}
+
+const compareBytes = (a, b) => Buffer.compare(Buffer.from(a, 'ascii'), Buffer.from(b, 'ascii'))
+
+const serialize = (root) => {
+  // Breadth-first, so every node's children end up next to each other
+  const nodes = [root]
+  for (let i = 0; i < nodes.length; i++) {
+    const node = nodes[i]
+    const children = [...node.children.values()].sort((a, b) => compareBytes(a.label, b.label))
+    node.firstChild = nodes.length
+    node.childCount = children.length
+    nodes.push(...children)
+  }
+
+  const labelOffsets = new Map()
+  const labelChunks = []
+  let poolLength = 0
+  for (const node of nodes) {
+    if (node.label.length > 255) {
+      throw new Error(`Label too long: ${node.label}`)
+    }
+    if (!labelOffsets.has(node.label)) {
+      labelOffsets.set(node.label, poolLength)
+      labelChunks.push(Buffer.from(node.label, 'ascii'))
+      poolLength += node.label.length
+    }
+  }
+
+  const out = Buffer.alloc(HEADER_SIZE + nodes.length * NODE_SIZE + poolLength)
+  out.write('PPSL', 0, 'ascii')
+  out.writeUInt16BE(VERSION, 4)
+  out.writeUInt32BE(nodes.length, 8)
+  out.writeUInt32BE(poolLength, 12)
+
+  nodes.forEach((node, i) => {
+    const at = HEADER_SIZE + i * NODE_SIZE
+    out.writeUInt32BE(labelOffsets.get(node.label), at)
+    out.writeUInt8(node.label.length, at + 4)
+    out.writeUInt8(node.flags, at + 5)
+    out.writeUInt16BE(node.childCount, at + 6)
+    out.writeUInt32BE(node.firstChild, at + 8)
+  })
+  Buffer.concat(labelChunks).copy(out, HEADER_SIZE + nodes.length * NODE_SIZE)
+
+  return { bytes: out, nodeCount: nodes.length }
+}
+
+const main = () => {
+  const [input, output = defaultOut] = process.argv.slice(2)
+  if (!input) {
+    console.error('Usage: node scripts/build-public-suffixes.cjs <public_suffix_list.dat> [out.bin]')
+    process.exit(1)
+  }
+
+  const text = fs.readFileSync(input, 'utf-8')
+  const { version, commit } = readListVersion(text)
+  const { root, count } = parseRules(text)
+  const { bytes, nodeCount } = serialize(root)
+
+  fs.mkdirSync(path.dirname(output), { recursive: true })
+  fs.writeFileSync(output, bytes)
+  console.log(`Wrote ${count} rules (${nodeCount} nodes, ${bytes.length} bytes) to ${output}`)
+
+  if (path.resolve(output) === defaultOut) {
+    fs.writeFileSync(
+      versionFile,
+      [
+        `version: ${version}`,
+        `commit: ${commit}`,
+        `source: https://github.com/publicsuffix/list/blob/${commit}/public_suffix_list.dat`,
+        `rules: ${count}`,
+        ''
+      ].join('\n')
+    )
+    console.log(`Recorded list version ${version} in ${versionFile}`)
+  }
+}
+
+main()
@@ -62,3 +62,23 @@ export const requestToEnableAutofill = async () => {
     return false
   }
 }
+
+/**
+ * Gets the autofill extension's worklet request metrics (Android only)
+ * Per command: queueWaitUs, encodeUs, roundTripUs, parseUs and replyBytes
+ * summaries ({count, mean, max, p50, p90, p99}) plus a failure count
+ * @param {{reset?: boolean}} [options] Clear the metrics after reading them
+ * @returns {Promise<Object|null>} Metrics by command name, or null if unavailable
+ */
+export const getAutofillMetrics = async ({ reset = false } = {}) => {
+  if (!NativeModules.AutofillModule?.getAutofillMetrics) {
+    return null
+  }
+
+  try {
+    return await NativeModules.AutofillModule.getAutofillMetrics(reset)
+  } catch (error) {
+    logger.error('Failed to get autofill metrics:', error)
+    return null
+  }
+}
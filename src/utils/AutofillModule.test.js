@@ -12,7 +12,8 @@ jest.mock('react-native', () => ({
     AutofillModule: {
       isAutofillEnabled: jest.fn(),
       openAutofillSettings: jest.fn(),
-      requestToEnableAutofill: jest.fn()
+      requestToEnableAutofill: jest.fn(),
+      getAutofillMetrics: jest.fn()
     }
   },
   Platform: {
@@ -24,6 +25,7 @@ jest.mock('react-native', () => ({
 const { NativeModules } = require('react-native')
 
 const {
+  getAutofillMetrics,
   isAutofillEnabled,
   openAutofillSettings,
   requestToEnableAutofill
@@ -195,4 +197,59 @@ describe('AutofillModule', () => {
       NativeModules.AutofillModule = originalMock
     })
   })
+
+  describe('getAutofillMetrics', () => {
+    test('should return the native metrics snapshot', async () => {
+      const metrics = {
+        ACTIVE_VAULT_LIST: { failures: 0, roundTripUs: { count: 2, p50: 1023 } }
+      }
+      NativeModules.AutofillModule.getAutofillMetrics.mockResolvedValueOnce(
+        metrics
+      )
+
+      const result = await getAutofillMetrics()
+
+      expect(result).toEqual(metrics)
+      expect(
+        NativeModules.AutofillModule.getAutofillMetrics
+      ).toHaveBeenCalledWith(false)
+    })
+
+    test('should pass the reset option', async () => {
+      NativeModules.AutofillModule.getAutofillMetrics.mockResolvedValueOnce({})
+
+      await getAutofillMetrics({ reset: true })
+
+      expect(
+        NativeModules.AutofillModule.getAutofillMetrics
+      ).toHaveBeenCalledWith(true)
+    })
+
+    test('should return null when native module throws an error', async () => {
+      const mockError = new Error('Unavailable')
+      NativeModules.AutofillModule.getAutofillMetrics.mockRejectedValueOnce(
+        mockError
+      )
+
+      const result = await getAutofillMetrics()
+
+      expect(result).toBeNull()
+      expect(logger.error).toHaveBeenCalledWith(
+        'Failed to get autofill metrics:',
+        mockError
+      )
+    })
+
+    test('should return null when the platform has no metrics', async () => {
+      const originalMock = NativeModules.AutofillModule
+      NativeModules.AutofillModule = { isAutofillEnabled: jest.fn() }
+
+      const result = await getAutofillMetrics()
+
+      expect(result).toBeNull()
+      expect(logger.error).not.toHaveBeenCalled()
+
+      NativeModules.AutofillModule = originalMock
+    })
+  })
 })